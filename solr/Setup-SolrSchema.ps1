@@ -27,11 +27,14 @@ function Test-FieldExists {
 function Ensure-Field {
   param([hashtable]$FieldDef)
   $name = $FieldDef.name
+  $schemaUrl = "$BaseUrl/$Collection/schema"
   if (Test-FieldExists -FieldName $name) {
-    Write-Host "Field '$name' already exists. Skip."
+    # replace-field is a no-op for an unchanged definition; a changed one needs a full rebuild
+    # (POST /api/admin/search/rebuild) before existing documents match it.
+    Invoke-JsonPost -Uri $schemaUrl -Body @{ "replace-field" = $FieldDef } | Out-Null
+    Write-Host "Field '$name' already exists. Definition replaced."
     return
   }
-  $schemaUrl = "$BaseUrl/$Collection/schema"
   Write-Host "Adding field '$name' ..."
   Invoke-JsonPost -Uri $schemaUrl -Body @{ "add-field" = @($FieldDef) } | Out-Null
   Write-Host "Added."
@@ -39,10 +42,12 @@ function Ensure-Field {
 
 $fields = @(
   @{ name="type";          type="string";  stored=$true },
+  @{ name="entity_id_l";   type="plong";   stored=$true },
   @{ name="goal_id_l";     type="plong";   stored=$true },
   @{ name="goal_name_ja";  type="text_ja"; stored=$true },
   @{ name="task_name_ja";  type="text_ja"; stored=$true },
-  @{ name="updated_at_dt"; type="pdate";   stored=$true }
+  @{ name="updated_at_dt"; type="pdate";   stored=$false; indexed=$false; docValues=$true },
+  @{ name="completed_i";   type="pint";    stored=$false; indexed=$false; docValues=$true }
 )
 
 foreach ($f in $fields) {
@@ -1,88 +1,160 @@
 package todoapp.application.boot;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
-
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.solr.common.SolrInputDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.core.annotation.Order;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import todoapp.application.domain.Goal;
-import todoapp.application.domain.Task;
+import todoapp.application.domain.SearchIndexState;
+import todoapp.application.domain.SearchOutbox.EntityType;
 import todoapp.application.repository.GoalRepository;
+import todoapp.application.repository.SearchIndexStateRepository;
 import todoapp.application.repository.TaskRepository;
+import todoapp.application.service.search.IndexPager;
+import todoapp.application.service.search.SearchCatchUpIndexer;
 import todoapp.application.service.search.SolrIndexService;
 
+/**
+ * Brings the index up to date in the background at startup. In "incremental"
+ * mode only rows changed since the stored watermark are reindexed. In "full"
+ * mode everything is bulk loaded: goals and then tasks are read in bounded
+ * pages by id (see {@link IndexPager}), and documents are sent on a worker pool
+ * while the next page is read. The last fully indexed goal and task ids are
+ * checkpointed so an interrupted run resumes.
+ */
 @Component
 @Order(100)
 public class StartupReindexer implements ApplicationRunner {
-    
+
+    private static final Logger log = LoggerFactory.getLogger(StartupReindexer.class);
+    private static final String CHECKPOINT = "full-reindex";
+    private static final String TASK_CHECKPOINT = "full-reindex-tasks";
+
     private final GoalRepository goals;
     private final TaskRepository tasks;
+    private final SearchIndexStateRepository states;
     private final SolrIndexService solr;
+    private final SearchCatchUpIndexer catchUp;
+    private final TransactionTemplate readTx;
+    private final TransactionTemplate writeTx;
 
     @Value("${app.search.reindex-on-startup:true}")
     boolean reindexOnStartup;
 
-    public StartupReindexer(GoalRepository goals, TaskRepository tasks, SolrIndexService solr) {
+    @Value("${app.search.reindex.mode:incremental}")
+    String mode;
+
+    @Value("${app.search.reindex.page-size:200}")
+    int pageSize;
+
+    @Value("${app.search.reindex.workers:4}")
+    int workers;
+
+    public StartupReindexer(GoalRepository goals, TaskRepository tasks, SearchIndexStateRepository states,
+            SolrIndexService solr, SearchCatchUpIndexer catchUp, PlatformTransactionManager txManager) {
         this.goals = goals;
         this.tasks = tasks;
+        this.states = states;
         this.solr = solr;
+        this.catchUp = catchUp;
+        this.readTx = new TransactionTemplate(txManager);
+        this.readTx.setReadOnly(true);
+        this.writeTx = new TransactionTemplate(txManager);
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public void run(ApplicationArguments arg) throws Exception {
+    public void run(ApplicationArguments arg) {
         if (!reindexOnStartup) return;
+        Runnable job = "full".equalsIgnoreCase(mode) ? this::reindex : catchUp::catchUp;
+        Thread t = new Thread(job, "startup-reindexer");
+        t.setDaemon(true);
+        t.start();
+    }
 
-        int pageSize = 200;
-        int pageNum = 0;
-        Page<Goal> page;
-
-        do {
-            page = goals.findAll(PageRequest.of(pageNum, pageSize, Sort.by("id").ascending()));
-            List<Goal> batch = page.getContent();
-
-            List<String> idsToCheck = new ArrayList<>();
-            Map<Long, List<Task>> tasksByGoal = new HashMap<>();
-            
-            for (Goal g : batch) {
-                idsToCheck.add(solr.goalDocId(g.getId()));
-                List<Task> ts = tasks.findByGoalIdOrderByIdAsc(g.getId());
-                tasksByGoal.put(g.getId(), ts);
-                for (Task t : ts) {
-                    idsToCheck.add(solr.taskDocId(t.getId()));
-                }
-            }
+    void reindex() {
+        Instant startedAt = Instant.now();
+        long goalAfterId = loadCheckpoint(CHECKPOINT);
+        long taskAfterId = loadCheckpoint(TASK_CHECKPOINT);
+        boolean resumed = goalAfterId > 0 || taskAfterId > 0;
+        if (resumed) log.info("Resuming reindex after goal id {} and task id {}", goalAfterId, taskAfterId);
 
-            Set<String> existing = solr.fetchExistingIds(idsToCheck);
-
-            Map<Goal, List<Task>> needIndex = batch.stream()
-                .filter(g -> {
-                    String gid = solr.goalDocId(g.getId());
-                    if (!existing.contains(gid)) return true;
-                    return tasksByGoal.get(g.getId()).stream()
-                        .map(t -> solr.taskDocId(t.getId()))
-                        .anyMatch(id -> !existing.contains(id));
-                })
-                .collect(Collectors.toMap(g -> g, g -> tasksByGoal.get(g.getId())));
-            
-            if (!needIndex.isEmpty()) {
-                solr.indexGoalsWithTasksBulk(needIndex);
+        AtomicInteger seq = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread w = new Thread(r, "reindex-worker-" + seq.incrementAndGet());
+            w.setDaemon(true);
+            return w;
+        });
+        IndexPager pager = new IndexPager(goals, tasks, solr, readTx, pageSize, goalAfterId, taskAfterId);
+        Deque<PageJob> inFlight = new ArrayDeque<>();
+        try {
+            IndexPager.Page page;
+            while ((page = pager.next()) != null) {
+                List<SolrInputDocument> docs = page.docs;
+                inFlight.add(new PageJob(page.type, page.lastId, pool.submit(() -> solr.indexDocsBulk(docs))));
+                while (inFlight.size() > workers) completeHead(inFlight);
             }
+            while (!inFlight.isEmpty()) completeHead(inFlight);
+            saveCheckpoint(CHECKPOINT, 0);
+            saveCheckpoint(TASK_CHECKPOINT, 0);
+            if (!resumed) catchUp.markCaughtUp(startedAt);
+            log.info("Reindex finished");
+        } catch (ExecutionException e) {
+            log.error("Reindex stopped, will resume from the last checkpoint: {}", e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void completeHead(Deque<PageJob> inFlight) throws InterruptedException, ExecutionException {
+        PageJob job = inFlight.removeFirst();
+        job.future.get();
+        saveCheckpoint(job.type == EntityType.GOAL ? CHECKPOINT : TASK_CHECKPOINT, job.lastId);
+    }
+
+    private long loadCheckpoint(String name) {
+        Long id = readTx.execute(status -> states.findById(name).map(SearchIndexState::getLastId).orElse(0L));
+        return id != null ? id : 0L;
+    }
+
+    private void saveCheckpoint(String name, long lastId) {
+        writeTx.executeWithoutResult(status -> {
+            SearchIndexState s = states.findById(name).orElseGet(() -> {
+                SearchIndexState created = new SearchIndexState();
+                created.setName(name);
+                return created;
+            });
+            s.setLastId(lastId);
+            states.save(s);
+        });
+    }
+
+    private static final class PageJob {
+        final EntityType type;
+        final long lastId;
+        final Future<?> future;
 
-            pageNum++;
-        } while (page.hasNext());
+        PageJob(EntityType type, long lastId, Future<?> future) {
+            this.type = type;
+            this.lastId = lastId;
+            this.future = future;
+        }
     }
 }
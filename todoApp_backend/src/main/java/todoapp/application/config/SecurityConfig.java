@@ -29,6 +29,7 @@ public class SecurityConfig {
     cfg.setAllowedOrigins(java.util.Arrays.asList("http://localhost:8081"));
     cfg.setAllowedMethods(java.util.Arrays.asList("GET","POST","PUT","PATCH","DELETE","OPTIONS"));
     cfg.setAllowedHeaders(java.util.Arrays.asList("*"));
+    cfg.setExposedHeaders(java.util.Arrays.asList("X-Total-Count", "X-Next-Cursor"));
     cfg.setAllowCredentials(true);
     var source = new org.springframework.web.cors.UrlBasedCorsConfigurationSource();
     source.registerCorsConfiguration("/**", cfg);
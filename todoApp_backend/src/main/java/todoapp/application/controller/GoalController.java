@@ -1,30 +1,42 @@
 package todoapp.application.controller;
 
 import java.net.URI;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import javax.validation.Valid;
 
 
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import todoapp.application.domain.Goal;
-import todoapp.application.domain.Task;
+import todoapp.application.repository.ListProjections;
+import todoapp.application.service.GoalActivityAccumulator;
 import todoapp.application.service.GoalService;
+import todoapp.application.service.SingleFlight;
+import todoapp.application.web.FieldSelection;
+import todoapp.application.web.KeysetCursor;
+import todoapp.application.web.ListTotal;
+import todoapp.application.web.dto.GoalPatchRequest;
 import todoapp.application.web.dto.GoalRequest;
 import todoapp.application.web.dto.GoalResponse;
 
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -38,20 +50,59 @@ import org.springframework.web.bind.annotation.PutMapping;
 public class GoalController {
     
     private final GoalService service;
+    private final SingleFlight singleFlight;
+    private final GoalActivityAccumulator activity;
+    private final int maxPageSize;
 
-    public GoalController(GoalService service) {
+    public GoalController(GoalService service, SingleFlight singleFlight, GoalActivityAccumulator activity,
+        @Value("${app.list.max-page-size:100}") int maxPageSize) {
         this.service = service;
+        this.singleFlight = singleFlight;
+        this.activity = activity;
+        this.maxPageSize = maxPageSize;
     }
 
+    /** total=exact (default) | estimate | none; "none" returns a Slice without totals. */
     @GetMapping
-    public Page<GoalResponse> list(
-        @PageableDefault(sort = "updatedAt", direction = Sort.Direction.DESC) Pageable pageable) {
-            return service.list(pageable).map(this::toResponse);
+    public Slice<GoalResponse> list(
+        @PageableDefault(sort = "updatedAt", direction = Sort.Direction.DESC) Pageable pageable,
+        @RequestParam(name = "total", defaultValue = "exact") String total) {
+            Slice<Goal> page = service.list(pageable, ListTotal.parse(total));
+            Map<Long, GoalActivityAccumulator.Activity> unflushed = activity.pending(ids(page.getContent()));
+            return page.map(g -> toResponse(g, unflushed.get(g.getId())));
+    }
+
+    /** Variant of {@link #list} returning only the columns named in ?fields= (e.g. fields=id,name). */
+    @GetMapping(params = { "fields", "!cursor" })
+    public Slice<Map<String, Object>> listFields(
+        @RequestParam String fields,
+        @PageableDefault(sort = "updatedAt", direction = Sort.Direction.DESC) Pageable pageable,
+        @RequestParam(name = "total", defaultValue = "exact") String total) {
+        FieldSelection.checkSort(pageable.getSort(), ListProjections.GOAL_FIELDS.keySet());
+        return service.listFields(FieldSelection.parse(fields, ListProjections.GOAL_FIELDS.keySet()),
+            pageable, ListTotal.parse(total));
+    }
+
+    /** Keyset variant of {@link #list}: pass an empty cursor for the first page, then X-Next-Cursor. */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<List<GoalResponse>> listByCursor(
+        @RequestParam String cursor, @RequestParam(defaultValue = "20") int size) {
+        int limit = Math.min(Math.max(size, 1), maxPageSize);
+        List<Goal> rows = service.listAfter(KeysetCursor.decode(cursor), limit + 1);
+        var response = ResponseEntity.ok();
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            Goal last = rows.get(limit - 1);
+            response.header(SearchController.NEXT_CURSOR_HEADER, new KeysetCursor(last.getUpdatedAt(), last.getId()).encode());
+        }
+        Map<Long, GoalActivityAccumulator.Activity> unflushed = activity.pending(ids(rows));
+        return response.body(rows.stream().map(g -> toResponse(g, unflushed.get(g.getId()))).collect(Collectors.toList()));
     }
 
     @GetMapping("/{id}")
     public GoalResponse get(@PathVariable Long id) {
-        return toResponse(service.get(id));
+        // keyed by version like detail, so a caller never joins a load that started before its own write
+        return singleFlight.execute("goal", detailETag(id, service.version(id)), () -> toResponse(service.get(id)));
     }
 
     @PostMapping
@@ -59,7 +110,9 @@ public class GoalController {
         Goal saved = service.create(req);
         URI location = ServletUriComponentsBuilder.fromCurrentRequest()
             .path("/{id}").buildAndExpand(saved.getId()).toUri();
-        return ResponseEntity.created(location).body(toResponse(saved));
+        // re-read after commit: a quick-add returns the shared unassigned goal, whose stored
+        // counters may have been drained meanwhile; the body then matches an immediate GET
+        return ResponseEntity.created(location).body(toResponse(service.get(saved.getId())));
     }
     
     @PutMapping("/{id}")
@@ -67,12 +120,27 @@ public class GoalController {
         return toResponse(service.update(id, req));
     }
 
+    @PatchMapping("/{id}")
+    public GoalResponse patch(@PathVariable Long id, @Valid @RequestBody GoalPatchRequest req) {
+        return toResponse(service.patch(id, req));
+    }
+
+    /**
+     * Strong ETag from the goal's version; a matching If-None-Match is answered
+     * with 304 after one primary-key lookup, without loading the tasks.
+     */
     @GetMapping("/{id}/detail")
-    public GoalResponse detail(@PathVariable Long id) {
-        Goal g = service.get(id);
+    public GoalResponse detail(@PathVariable Long id, WebRequest request) {
+        String etag = detailETag(id, service.version(id));
+        if (request.checkNotModified(etag)) return null;
+        // keyed by version too, so a body loaded before that version is never shared under its ETag
+        return singleFlight.execute("goal-detail", etag, () -> loadDetail(id));
+    }
+
+    private GoalResponse loadDetail(Long id) {
+        Goal g = service.getWithTasks(id);
         GoalResponse r = toResponse(g);
-        List<Task> list = service.listTasks(id);
-        List<GoalResponse.TaskSummary> ts = list.stream().map(t -> {
+        List<GoalResponse.TaskSummary> ts = g.getTasks().stream().map(t -> {
             GoalResponse.TaskSummary s = new GoalResponse.TaskSummary();
             s.id = t.getId();
             s.name = t.getName();
@@ -85,6 +153,11 @@ public class GoalController {
         return r;
     }
 
+    private static String detailETag(Long id, Instant version) {
+        long micros = version.getEpochSecond() * 1_000_000L + version.getNano() / 1_000;
+        return "\"" + id + "-" + micros + "\"";
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
         service.delete(id);
@@ -92,13 +165,27 @@ public class GoalController {
     }
 
     private GoalResponse toResponse(Goal g) {
+        return toResponse(g, activity.pending(g.getId()));
+    }
+
+    private GoalResponse toResponse(Goal g, GoalActivityAccumulator.Activity unflushed) {
         GoalResponse r = new GoalResponse();
         r.setId(g.getId());
         r.setName(g.getName());
         r.setDescription(g.getDescription());
         r.setDeletionProtected(g.isDeletionProtected());
         r.setCreatedAt(g.getCreatedAt());
-        r.setUpdatedAt(g.getUpdatedAt());
+        r.setUpdatedAt(GoalActivityAccumulator.effectiveUpdatedAt(g.getUpdatedAt(), unflushed));
+        r.setTotalTasks(g.getTotalTasks());
+        r.setCompletedTasks(g.getCompletedTasks());
+        if (unflushed != null) {
+            r.setTotalTasks(r.getTotalTasks() + (int) unflushed.getTotalDelta());
+            r.setCompletedTasks(r.getCompletedTasks() + (int) unflushed.getCompletedDelta());
+        }
         return r;
     }
+
+    private static List<Long> ids(List<Goal> goals) {
+        return goals.stream().map(Goal::getId).collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,62 @@
+package todoapp.application.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import todoapp.application.service.search.SearchRebuildService;
+
+/**
+ * Search index administration. Off unless app.search.admin.enabled is set, and
+ * then only for callers presenting app.search.admin.token in X-Admin-Token,
+ * since the API itself is open. A rebuild requested while one runs is a 409.
+ */
+@RestController
+@RequestMapping("/api/admin/search")
+public class SearchAdminController {
+
+    public static final String TOKEN_HEADER = "X-Admin-Token";
+
+    private final SearchRebuildService rebuild;
+    private final boolean enabled;
+    private final byte[] token;
+
+    public SearchAdminController(SearchRebuildService rebuild,
+        @Value("${app.search.admin.enabled:false}") boolean enabled,
+        @Value("${app.search.admin.token:}") String token) {
+        this.rebuild = rebuild;
+        this.enabled = enabled;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<SearchRebuildService.Status> startRebuild(
+        @RequestHeader(name=TOKEN_HEADER, required=false) String presented) {
+        authorize(presented);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(rebuild.start());
+    }
+
+    @GetMapping("/rebuild")
+    public SearchRebuildService.Status rebuildStatus(
+        @RequestHeader(name=TOKEN_HEADER, required=false) String presented) {
+        authorize(presented);
+        return rebuild.status();
+    }
+
+    private void authorize(String presented) {
+        if (!enabled) throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        if (token.length == 0 || presented == null
+            || !MessageDigest.isEqual(token, presented.getBytes(StandardCharsets.UTF_8))) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+    }
+}
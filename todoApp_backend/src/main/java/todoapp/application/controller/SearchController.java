@@ -1,74 +1,191 @@
 package todoapp.application.controller;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
+import org.apache.solr.common.params.CursorMarkParams;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
-import todoapp.application.domain.Goal;
+import todoapp.application.repository.EntityVersion;
 import todoapp.application.repository.GoalRepository;
+import todoapp.application.service.SingleFlight;
 import todoapp.application.service.search.SolrIndexService;
+import todoapp.application.service.search.SuggestIndex;
 
 @RestController
 public class SearchController {
 
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final GoalRepository goals;
     private final SolrIndexService solr;
+    private final SearchResultCache cache;
+    private final SingleFlight singleFlight;
+    private final SuggestIndex suggest;
+    private final int maxPageSize;
+    private final int unpagedRows;
+    private final int maxDocs;
+    private final boolean verifyWithDb;
 
-    public SearchController(GoalRepository goals, SolrIndexService solr) {
+    public SearchController(GoalRepository goals, SolrIndexService solr, SearchResultCache cache,
+        SingleFlight singleFlight, SuggestIndex suggest,
+        @Value("${app.search.max-page-size:100}") int maxPageSize,
+        @Value("${app.search.unpaged-rows:2000}") int unpagedRows,
+        @Value("${app.search.max-docs:2000}") int maxDocs,
+        @Value("${app.search.verify-with-db:false}") boolean verifyWithDb) {
         this.goals = goals;
         this.solr = solr;
+        this.cache = cache;
+        this.singleFlight = singleFlight;
+        this.suggest = suggest;
+        this.maxPageSize = maxPageSize;
+        this.unpagedRows = unpagedRows;
+        this.maxDocs = maxDocs;
+        this.verifyWithDb = verifyWithDb;
     }
 
+    /**
+     * Requests with neither cursor nor size keep the unpaged shape clients were
+     * written against: up to unpaged-rows goals in one response. Paging clients pass
+     * size (default 20 goals) and follow X-Next-Cursor. Either way goals carry 5
+     * tasks unless tasksPerGoal says otherwise, and goals times (tasks + 1) Solr
+     * documents are capped at max-docs by fetching fewer goals.
+     */
     @GetMapping("/api/search/goals")
-    public List<ResultDto> search(@RequestParam(name="q", required=false) String q) {
-        if (q == null || q.trim().isEmpty()) {
-            return List.of();
+    public ResponseEntity<List<ResultDto>> search(
+        @RequestParam(name="q", required=false) String q,
+        @RequestParam(name="cursor", required=false) String cursor,
+        @RequestParam(name="size", required=false) Integer size,
+        @RequestParam(name="tasksPerGoal", required=false) Integer tasksPerGoal) {
+        String keyword = q == null ? "" : SearchResultCache.normalize(q);
+        if (keyword.isEmpty()) {
+            return ResponseEntity.ok(List.of());
         }
-        Map<Long, SolrIndexService.GoalHit> hits = solr.searchGoalTaskHits(q.trim(), 2000);
+        boolean paged = cursor != null || size != null;
+        int perGoal = Math.min(Math.max(tasksPerGoal != null ? tasksPerGoal : 5, 0), maxDocs - 1);
+        int goalRows = paged ? Math.min(Math.max(size != null ? size : 20, 1), maxPageSize) : unpagedRows;
+        int rows = Math.max(Math.min(goalRows, maxDocs / (perGoal + 1)), 1);
 
-        List<Goal> goalList = new ArrayList<>(goals.findAllById(hits.keySet()));
-        goalList.sort(Comparator.comparing(Goal::getUpdatedAt).reversed());
+        SearchResultCache.Page page = null;
+        String key = null;
+        if (cache.isEnabled()) {
+            key = SearchResultCache.key(keyword, cursor, rows, perGoal);
+            page = cache.get(key);
+        }
+        if (page == null) {
+            String cursorMark = decodeCursor(cursor);
+            String cacheKey = key;
+            // Only the caller that actually runs the query fills the cache, tagged with the generation it read at.
+            page = singleFlight.execute("search", SearchResultCache.key(keyword, cursorMark, rows, perGoal), () -> {
+                long generation = cache.readGeneration();
+                SearchResultCache.Page loaded = load(keyword, cursorMark, rows, perGoal);
+                if (cacheKey != null) cache.put(cacheKey, loaded, generation);
+                return loaded;
+            });
+        }
 
-        List<ResultDto> out = new ArrayList<>();
-        for (Goal g : goalList) {
-            var gh = hits.get(g.getId());
+        var response = ResponseEntity.ok().header(TOTAL_COUNT_HEADER, String.valueOf(page.totalGoals));
+        if (page.nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor);
+        }
+        return response.body(page.results);
+    }
+
+    /**
+     * Typeahead completions of goal and task names, served from memory.
+     * Kana is matched regardless of katakana / hiragana and full / half width.
+     */
+    @GetMapping("/api/search/suggest")
+    public List<SuggestionDto> suggest(
+        @RequestParam(name="q", required=false) String q,
+        @RequestParam(name="size", defaultValue="10") int size) {
+        List<SuggestionDto> out = new ArrayList<>();
+        for (SuggestIndex.Suggestion s : suggest.suggest(q, size)) {
+            SuggestionDto dto = new SuggestionDto();
+            dto.text = s.text;
+            dto.count = s.count;
+            out.add(dto);
+        }
+        return out;
+    }
 
+    private SearchResultCache.Page load(String keyword, String cursorMark, int rows, int tasksPerGoal) {
+        var result = solr.searchGoalTaskHits(keyword, cursorMark, rows, tasksPerGoal);
+        List<ResultDto> out = new ArrayList<>();
+        for (var gh : verifyWithDb ? dropStale(result.goals) : result.goals) {
             ResultDto dto = new ResultDto();
-            dto.id = g.getId();
-            dto.updatedAt = g.getUpdatedAt();
-            dto.nameHtml = (gh != null && gh.goalNameHtml != null) ? gh.goalNameHtml : escape(g.getName());
-
-            if (gh != null && gh.tasks != null && !gh.tasks.isEmpty()) {
-                for (var th : gh.tasks) {
-                    TaskDto td = new TaskDto();
-                    td.id = th.id;
-                    td.nameHtml = th.nameHtml;
-                    td.updatedAt = th.updatedAt;
-                    dto.tasks.add(td);
-                }
+            dto.id = gh.goalId;
+            dto.nameHtml = gh.goalNameHtml;
+            dto.updatedAt = gh.updatedAt;
+            for (var th : gh.tasks) {
+                TaskDto td = new TaskDto();
+                td.id = th.id;
+                td.nameHtml = th.nameHtml;
+                td.completed = th.completed;
+                td.updatedAt = th.updatedAt;
+                dto.tasks.add(td);
             }
             out.add(dto);
         }
-        return out;
+        String next = result.nextCursorMark != null ? encodeCursor(result.nextCursorMark) : null;
+        return new SearchResultCache.Page(out, result.totalGoals, next);
+    }
+
+    // Hits for goals that are gone from the database or were changed after they were indexed.
+    private List<SolrIndexService.GoalHit> dropStale(List<SolrIndexService.GoalHit> hits) {
+        if (hits.isEmpty()) return hits;
+        Map<Long, Instant> current = new HashMap<>();
+        for (EntityVersion v : goals.findVersionsByIdIn(hits.stream().map(gh -> gh.goalId).collect(Collectors.toList()))) {
+            current.put(v.getId(), v.getUpdatedAt().truncatedTo(ChronoUnit.MILLIS));
+        }
+        List<SolrIndexService.GoalHit> fresh = new ArrayList<>(hits.size());
+        for (var gh : hits) {
+            Instant db = current.get(gh.goalId);
+            if (db != null && !gh.updatedAt.isBefore(db)) fresh.add(gh);
+        }
+        return fresh;
     }
 
-    private static String escape(String s) {
-        return s == null ? "" : s
-            .replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    // The continuation token is the Solr cursorMark, base64url-wrapped so clients treat it as opaque.
+    private static String encodeCursor(String cursorMark) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursorMark.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return CursorMarkParams.CURSOR_MARK_START;
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor");
+        }
     }
 
     // --- DTOs ---
     public static class TaskDto {
         public Long id;
         public String nameHtml;
+        public boolean completed;
         public Instant updatedAt;
     }
+    public static class SuggestionDto {
+        public String text;
+        /** Number of goals and tasks with this name. */
+        public int count;
+    }
     public static class ResultDto {
         public Long id;
         public String nameHtml;
@@ -0,0 +1,175 @@
+package todoapp.application.controller;
+
+import java.text.Normalizer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import todoapp.application.controller.SearchController.ResultDto;
+import todoapp.application.controller.SearchController.TaskDto;
+import todoapp.application.service.search.SearchIndexWriter;
+
+/**
+ * LRU cache of rendered search pages, bounded by an estimate of their size in
+ * bytes and by a TTL. Each entry remembers the index generation it was read
+ * at and is treated as a miss once the index has changed since.
+ */
+@Component
+public class SearchResultCache {
+
+    public static final class Page {
+        final List<ResultDto> results;
+        final long totalGoals;
+        final String nextCursor;
+
+        public Page(List<ResultDto> results, long totalGoals, String nextCursor) {
+            this.results = List.copyOf(results);
+            this.totalGoals = totalGoals;
+            this.nextCursor = nextCursor;
+        }
+    }
+
+    private static final class Entry {
+        final Page page;
+        final long generation;
+        final long expiresAt;
+        final long bytes;
+
+        Entry(Page page, long generation, long expiresAt, long bytes) {
+            this.page = page;
+            this.generation = generation;
+            this.expiresAt = expiresAt;
+            this.bytes = bytes;
+        }
+    }
+
+    private final SearchIndexWriter writer;
+    private final long maxBytes;
+    private final long ttlMs;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictedForSize;
+    private final Counter evictedExpired;
+    private final Counter evictedStale;
+
+    public SearchResultCache(
+        SearchIndexWriter writer,
+        MeterRegistry registry,
+        @Value("${app.search.cache.max-bytes:16777216}") long maxBytes,
+        @Value("${app.search.cache.ttl-ms:60000}") long ttlMs
+    ) {
+        this.writer = writer;
+        this.maxBytes = maxBytes;
+        this.ttlMs = ttlMs;
+
+        hits = registry.counter("search.cache.hits");
+        misses = registry.counter("search.cache.misses");
+        evictedForSize = registry.counter("search.cache.evictions", "cause", "size");
+        evictedExpired = registry.counter("search.cache.evictions", "cause", "expired");
+        evictedStale = registry.counter("search.cache.evictions", "cause", "stale");
+        Gauge.builder("search.cache.entries", this, c -> c.size())
+            .register(registry);
+        Gauge.builder("search.cache.size", this, c -> c.sizeInBytes())
+            .baseUnit("bytes")
+            .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /** Trims, collapses whitespace and NFKC-normalizes the keyword, so equivalent inputs share an entry. */
+    public static String normalize(String q) {
+        return Normalizer.normalize(q, Normalizer.Form.NFKC).trim().replaceAll("\\s+", " ");
+    }
+
+    public static String key(String normalizedQ, String cursor, int rows, int tasksPerGoal) {
+        return normalizedQ + '\u0000' + (cursor == null ? "" : cursor) + '\u0000' + rows + '\u0000' + tasksPerGoal;
+    }
+
+    /**
+     * Index generation to pass to {@link #put} for a result about to be read,
+     * or -1 if writes may still be invisible to queries and the result must not be cached.
+     */
+    public long readGeneration() {
+        long gen = writer.generation();
+        return writer.isSettled() ? gen : -1;
+    }
+
+    public synchronized Page get(String key) {
+        Entry e = entries.get(key);
+        if (e == null) {
+            misses.increment();
+            return null;
+        }
+        if (e.generation != writer.generation()) {
+            remove(key, e);
+            evictedStale.increment();
+            misses.increment();
+            return null;
+        }
+        if (e.expiresAt <= System.currentTimeMillis()) {
+            remove(key, e);
+            evictedExpired.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return e.page;
+    }
+
+    public synchronized void put(String key, Page page, long generation) {
+        if (generation < 0 || generation != writer.generation()) return;
+        long size = estimate(key, page);
+        if (size > maxBytes) return;
+
+        Entry old = entries.remove(key);
+        if (old != null) bytes -= old.bytes;
+        entries.put(key, new Entry(page, generation, System.currentTimeMillis() + ttlMs, size));
+        bytes += size;
+
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= it.next().getValue().bytes;
+            it.remove();
+            evictedForSize.increment();
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long sizeInBytes() {
+        return bytes;
+    }
+
+    private void remove(String key, Entry e) {
+        entries.remove(key);
+        bytes -= e.bytes;
+    }
+
+    // Rough retained size: object headers and references plus two bytes per char.
+    private static long estimate(String key, Page page) {
+        long size = 96 + chars(key) + chars(page.nextCursor);
+        for (ResultDto r : page.results) {
+            size += 80 + chars(r.nameHtml);
+            for (TaskDto t : r.tasks) size += 72 + chars(t.nameHtml);
+        }
+        return size;
+    }
+
+    private static long chars(String s) {
+        return s == null ? 0 : 40 + 2L * s.length();
+    }
+}
@@ -0,0 +1,120 @@
+package todoapp.application.controller;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import todoapp.application.service.SingleFlight;
+import todoapp.application.service.search.SolrIndexService;
+
+/**
+ * Dashboard numbers answered from the search index alone: task totals, the
+ * goals with the most tasks, and per-day activity over updated_at. Counts
+ * follow the index, so they trail the database by the indexing delay.
+ */
+@RestController
+public class StatsController {
+
+    private final SolrIndexService solr;
+    private final SingleFlight singleFlight;
+    private final ZoneId defaultZone;
+    private final int defaultDays;
+    private final int maxDays;
+    private final int maxGoals;
+
+    public StatsController(SolrIndexService solr, SingleFlight singleFlight,
+        @Value("${app.stats.time-zone:UTC}") String defaultZone,
+        @Value("${app.stats.default-days:30}") int defaultDays,
+        @Value("${app.stats.max-days:366}") int maxDays,
+        @Value("${app.stats.max-goals:100}") int maxGoals) {
+        this.solr = solr;
+        this.singleFlight = singleFlight;
+        this.defaultZone = ZoneId.of(defaultZone);
+        this.defaultDays = defaultDays;
+        this.maxDays = maxDays;
+        this.maxGoals = maxGoals;
+    }
+
+    /** from and to are inclusive local dates in tz; by default the last app.stats.default-days days. */
+    @GetMapping("/api/stats")
+    public StatsDto stats(
+        @RequestParam(name="q", required=false) String q,
+        @RequestParam(name="from", required=false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(name="to", required=false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(name="tz", required=false) String tz,
+        @RequestParam(name="goals", defaultValue="10") int goals) {
+        ZoneId zone = parseZone(tz);
+        LocalDate last = to != null ? to : LocalDate.now(zone);
+        LocalDate first = from != null ? from : last.minusDays(defaultDays - 1L);
+        long days = ChronoUnit.DAYS.between(first, last) + 1;
+        if (days < 1 || days > maxDays) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from..to must span 1 to " + maxDays + " days");
+        }
+        String keyword = q == null ? "" : SearchResultCache.normalize(q);
+        int goalLimit = Math.min(Math.max(goals, 0), maxGoals);
+
+        return singleFlight.execute("stats", List.of(keyword, first, last, zone.getId(), goalLimit), () -> {
+            var stats = solr.taskStats(keyword, first.atStartOfDay(zone).toInstant(),
+                last.plusDays(1).atStartOfDay(zone).toInstant(), zone.getId(), goalLimit);
+            StatsDto dto = new StatsDto();
+            dto.totalTasks = stats.total;
+            dto.completedTasks = stats.completed;
+            dto.openTasks = stats.total - stats.completed;
+            for (var g : stats.goals) {
+                GoalStatsDto gd = new GoalStatsDto();
+                gd.goalId = g.goalId;
+                gd.totalTasks = g.total;
+                gd.completedTasks = g.completed;
+                dto.goals.add(gd);
+            }
+            for (var d : stats.days) {
+                DayStatsDto dd = new DayStatsDto();
+                dd.date = d.start.atZone(zone).toLocalDate();
+                dd.updatedTasks = d.total;
+                dd.completedTasks = d.completed;
+                dto.days.add(dd);
+            }
+            return dto;
+        });
+    }
+
+    private ZoneId parseZone(String tz) {
+        if (tz == null || tz.isBlank()) return defaultZone;
+        try {
+            return ZoneId.of(tz);
+        } catch (DateTimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid tz");
+        }
+    }
+
+    // --- DTOs ---
+    public static class GoalStatsDto {
+        public Long goalId;
+        public long totalTasks;
+        public long completedTasks;
+    }
+    public static class DayStatsDto {
+        public LocalDate date;
+        /** Tasks whose last change falls on this day. */
+        public long updatedTasks;
+        public long completedTasks;
+    }
+    public static class StatsDto {
+        public long totalTasks;
+        public long completedTasks;
+        public long openTasks;
+        public List<GoalStatsDto> goals = new ArrayList<>();
+        public List<DayStatsDto> days = new ArrayList<>();
+    }
+}
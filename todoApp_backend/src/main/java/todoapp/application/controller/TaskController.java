@@ -1,13 +1,18 @@
 package todoapp.application.controller;
 
 import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import javax.validation.Valid;
 
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -18,12 +23,22 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import todoapp.application.domain.Task;
+import todoapp.application.repository.ListProjections;
 import todoapp.application.service.TaskService;
+import todoapp.application.web.FieldSelection;
+import todoapp.application.web.KeysetCursor;
+import todoapp.application.web.ListTotal;
 import todoapp.application.web.dto.CompletedUpdateRequest;
+import todoapp.application.web.dto.TaskBatchCompleteRequest;
+import todoapp.application.web.dto.TaskBatchCreateRequest;
+import todoapp.application.web.dto.TaskBatchMoveRequest;
+import todoapp.application.web.dto.TaskBatchResult;
 import todoapp.application.web.dto.TaskRequest;
 import todoapp.application.web.dto.TaskResponse;
 
@@ -33,22 +48,77 @@ import todoapp.application.web.dto.TaskResponse;
 public class TaskController {
     
     private final TaskService service;
+    private final int maxBatchSize;
+    private final int maxPageSize;
 
-    public TaskController(TaskService service) {
+    public TaskController(TaskService service,
+        @Value("${app.tasks.batch.max-size:5000}") int maxBatchSize,
+        @Value("${app.list.max-page-size:100}") int maxPageSize) {
         this.service = service;
+        this.maxBatchSize = maxBatchSize;
+        this.maxPageSize = maxPageSize;
     }
 
     @GetMapping("/goals/{goalId}/tasks")
-    public Page<TaskResponse> listByGoal(
+    public Slice<TaskResponse> listByGoal(
         @PathVariable Long goalId,
-        @PageableDefault(sort = "updatedAt", direction = Sort.Direction.DESC) Pageable pageable ) {
-            return  service.listByGoal(goalId, pageable).map(this::toResponse);
+        @PageableDefault(sort = "updatedAt", direction = Sort.Direction.DESC) Pageable pageable,
+        @RequestParam(name = "total", defaultValue = "exact") String total ) {
+            return  service.listByGoal(goalId, pageable, ListTotal.parse(total)).map(this::toResponse);
     }
 
     @GetMapping("/tasks/unassigned")
-    public Page<TaskResponse> listUnassigned(
-        @PageableDefault(sort = "updatedAt", direction = Sort.Direction.DESC) Pageable pageable ) {
-            return service.listUnassigned(pageable).map(this::toResponse);
+    public Slice<TaskResponse> listUnassigned(
+        @PageableDefault(sort = "updatedAt", direction = Sort.Direction.DESC) Pageable pageable,
+        @RequestParam(name = "total", defaultValue = "exact") String total ) {
+            return service.listUnassigned(pageable, ListTotal.parse(total)).map(this::toResponse);
+    }
+
+    /** Variants of the two lists above returning only the columns named in ?fields= (e.g. fields=id,name,completed). */
+    @GetMapping(path = "/goals/{goalId}/tasks", params = { "fields", "!cursor" })
+    public Slice<Map<String, Object>> listByGoalFields(
+        @PathVariable Long goalId,
+        @RequestParam String fields,
+        @PageableDefault(sort = "updatedAt", direction = Sort.Direction.DESC) Pageable pageable,
+        @RequestParam(name = "total", defaultValue = "exact") String total) {
+        FieldSelection.checkSort(pageable.getSort(), ListProjections.TASK_FIELDS.keySet());
+        return service.listByGoalFields(goalId, FieldSelection.parse(fields, ListProjections.TASK_FIELDS.keySet()),
+            pageable, ListTotal.parse(total));
+    }
+
+    @GetMapping(path = "/tasks/unassigned", params = { "fields", "!cursor" })
+    public Slice<Map<String, Object>> listUnassignedFields(
+        @RequestParam String fields,
+        @PageableDefault(sort = "updatedAt", direction = Sort.Direction.DESC) Pageable pageable,
+        @RequestParam(name = "total", defaultValue = "exact") String total) {
+        FieldSelection.checkSort(pageable.getSort(), ListProjections.TASK_FIELDS.keySet());
+        return service.listUnassignedFields(FieldSelection.parse(fields, ListProjections.TASK_FIELDS.keySet()),
+            pageable, ListTotal.parse(total));
+    }
+
+    /** Keyset variants of the two lists above: pass an empty cursor for the first page, then X-Next-Cursor. */
+    @GetMapping(path = "/goals/{goalId}/tasks", params = "cursor")
+    public ResponseEntity<List<TaskResponse>> listByGoalByCursor(
+        @PathVariable Long goalId, @RequestParam String cursor, @RequestParam(defaultValue = "20") int size) {
+        int limit = Math.min(Math.max(size, 1), maxPageSize);
+        return keysetPage(service.listByGoalAfter(goalId, KeysetCursor.decode(cursor), limit + 1), limit);
+    }
+
+    @GetMapping(path = "/tasks/unassigned", params = "cursor")
+    public ResponseEntity<List<TaskResponse>> listUnassignedByCursor(
+        @RequestParam String cursor, @RequestParam(defaultValue = "20") int size) {
+        int limit = Math.min(Math.max(size, 1), maxPageSize);
+        return keysetPage(service.listUnassignedAfter(KeysetCursor.decode(cursor), limit + 1), limit);
+    }
+
+    private ResponseEntity<List<TaskResponse>> keysetPage(List<Task> rows, int limit) {
+        var response = ResponseEntity.ok();
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            Task last = rows.get(limit - 1);
+            response.header(SearchController.NEXT_CURSOR_HEADER, new KeysetCursor(last.getUpdatedAt(), last.getId()).encode());
+        }
+        return response.body(rows.stream().map(this::toResponse).collect(Collectors.toList()));
     }
 
     @GetMapping("/tasks/{taskId}")
@@ -102,4 +172,28 @@ public class TaskController {
         service.setCompleted(taskId, req.getCompleted());
         return ResponseEntity.noContent().build();
     }
+
+    @PostMapping("/tasks/batch")
+    public List<TaskBatchResult> createBatch(@Valid @RequestBody TaskBatchCreateRequest req) {
+        checkBatchSize(req.getTasks().size());
+        return service.createBatch(req.getTasks());
+    }
+
+    @PostMapping("/tasks/batch/completed")
+    public List<TaskBatchResult> setCompletedBatch(@Valid @RequestBody TaskBatchCompleteRequest req) {
+        checkBatchSize(req.getIds().size());
+        return service.setCompletedBatch(req.getIds(), req.getCompleted());
+    }
+
+    @PostMapping("/tasks/batch/move")
+    public List<TaskBatchResult> moveBatch(@Valid @RequestBody TaskBatchMoveRequest req) {
+        checkBatchSize(req.getIds().size());
+        return service.moveBatch(req.getIds(), req.getGoalId());
+    }
+
+    private void checkBatchSize(int size) {
+        if (size > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "batch larger than " + maxBatchSize + " items");
+        }
+    }
 }
@@ -4,7 +4,6 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EntityListeners;
@@ -12,8 +11,11 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
+import javax.persistence.OrderBy;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Where;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -23,12 +25,14 @@ import lombok.Setter;
 
 @Entity
 @Table(name="goals")
+@Where(clause = "deleted_at is null")
 @EntityListeners(AuditingEntityListener.class)
 @Getter
 @Setter
 public class Goal {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "goals_id_seq")
+    @SequenceGenerator(name = "goals_id_seq", sequenceName = "goals_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "name", nullable = false, length = 200)
@@ -48,6 +52,19 @@ public class Goal {
     @Column(name = "updated_at", nullable = false)
     private Instant updatedAt;
 
-    @OneToMany(mappedBy = "goal", cascade = CascadeType.REMOVE, orphanRemoval = true)
+    // Maintained by GoalActivityAccumulator and GoalCounterRepairer only, never written through the entity.
+    @Column(name = "total_tasks", nullable = false, insertable = false, updatable = false)
+    private int totalTasks;
+
+    @Column(name = "completed_tasks", nullable = false, insertable = false, updatable = false)
+    private int completedTasks;
+
+    /** Set when the goal is soft-deleted; its tasks are purged in the background. */
+    @Column(name = "deleted_at")
+    private Instant deletedAt;
+
+    // Tasks are removed by the tasks.goal_id ON DELETE CASCADE, never through this collection.
+    @OneToMany(mappedBy = "goal")
+    @OrderBy("id asc")
     private List<Task> tasks = new ArrayList<>();
 }
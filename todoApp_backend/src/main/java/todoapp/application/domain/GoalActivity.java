@@ -0,0 +1,37 @@
+package todoapp.application.domain;
+
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/** One task write's effect on its goal, not yet applied to the goal row. */
+@Entity
+@Table(name = "goal_activity")
+@Getter
+@Setter
+public class GoalActivity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "goal_id", nullable = false)
+    private Long goalId;
+
+    @Column(nullable = false)
+    private Instant at;
+
+    @Column(name = "total_delta", nullable = false)
+    private int totalDelta;
+
+    @Column(name = "completed_delta", nullable = false)
+    private int completedDelta;
+}
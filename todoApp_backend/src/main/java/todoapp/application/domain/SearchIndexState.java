@@ -0,0 +1,36 @@
+package todoapp.application.domain;
+
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Entity
+@Table(name = "search_index_state")
+@EntityListeners(AuditingEntityListener.class)
+@Getter
+@Setter
+public class SearchIndexState {
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    @Column(name = "last_id", nullable = false)
+    private long lastId = 0;
+
+    @Column(name = "watermark_at")
+    private Instant watermarkAt;
+
+    @LastModifiedDate
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,71 @@
+package todoapp.application.domain;
+
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Entity
+@Table(name = "search_outbox")
+@EntityListeners(AuditingEntityListener.class)
+@Getter
+@Setter
+public class SearchOutbox {
+
+    public enum EntityType { GOAL, TASK }
+
+    /** PARTIAL refreshes only the in-place updatable fields (completed_i, updated_at_dt). */
+    public enum Operation { UPSERT, PARTIAL, DELETE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 16)
+    private EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation", nullable = false, length = 16)
+    private Operation operation;
+
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "processed_at")
+    private Instant processedAt;
+
+    /** Set while a relay is shipping the row; other relays wait until it passes. */
+    @Column(name = "claimed_until")
+    private Instant claimedUntil;
+
+    /** Set once the row failed app.search.outbox.max-attempts times; it is no longer retried. */
+    @Column(name = "parked_at")
+    private Instant parkedAt;
+}
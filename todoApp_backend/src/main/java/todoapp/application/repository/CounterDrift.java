@@ -0,0 +1,10 @@
+package todoapp.application.repository;
+
+/** Stored and recomputed task counters of one goal. */
+public interface CounterDrift {
+    Long getId();
+    Long getStoredTotal();
+    Long getStoredCompleted();
+    Long getTotal();
+    Long getCompleted();
+}
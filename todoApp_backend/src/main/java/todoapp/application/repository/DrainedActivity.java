@@ -0,0 +1,7 @@
+package todoapp.application.repository;
+
+/** A goal updated by a drain and the number of activity rows applied to it. */
+public interface DrainedActivity {
+    Long getGoalId();
+    Long getRows();
+}
@@ -0,0 +1,9 @@
+package todoapp.application.repository;
+
+import java.time.Instant;
+
+/** Id and updated_at of a row, used to compare index hits against the database. */
+public interface EntityVersion {
+    Long getId();
+    Instant getUpdatedAt();
+}
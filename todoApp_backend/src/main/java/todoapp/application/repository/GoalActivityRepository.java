@@ -0,0 +1,39 @@
+package todoapp.application.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import todoapp.application.domain.GoalActivity;
+
+public interface GoalActivityRepository extends JpaRepository<GoalActivity, Long> {
+
+    @Query("select a.goalId as goalId, max(a.at) as at, sum(a.totalDelta) as totalDelta, "
+        + "sum(a.completedDelta) as completedDelta from GoalActivity a where a.goalId in :ids group by a.goalId")
+    List<PendingActivity> sumByGoalIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Deletes the oldest rows and applies them to their goals in one statement:
+     * latest time with greatest(), counter deltas summed. Exactly the deleted rows
+     * are applied, so rows committed meanwhile stay for the next drain. Rows of
+     * soft-deleted goals are dropped.
+     */
+    @Query(value = "with drained as ("
+        + "  delete from goal_activity where id in (select id from goal_activity order by id limit :limit) "
+        + "  returning goal_id, at, total_delta, completed_delta), "
+        + "summed as ("
+        + "  select goal_id, max(at) as at, sum(total_delta) as total_delta, sum(completed_delta) as completed_delta, "
+        + "  count(*) as n from drained group by goal_id) "
+        + "update goals g set updated_at = greatest(g.updated_at, s.at), "
+        + "total_tasks = g.total_tasks + s.total_delta, completed_tasks = g.completed_tasks + s.completed_delta "
+        + "from summed s where g.id = s.goal_id and g.deleted_at is null "
+        + "returning g.id as \"goalId\", s.n as \"rows\"", nativeQuery = true)
+    List<DrainedActivity> drain(@Param("limit") int limit);
+
+    /** Transaction-scoped advisory lock, so only one instance drains at a time. */
+    @Query(value = "select pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryDrainLock(@Param("key") long key);
+}
@@ -1,8 +1,18 @@
 package todoapp.application.repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import todoapp.application.domain.Goal;
@@ -11,4 +21,85 @@ public interface GoalRepository extends JpaRepository<Goal, Long> {
     @Modifying
     @Query("update Goal g set g.updatedAt = CURRENT_TIMESTAMP where g.id = :id")
     int touch(@Param("id") Long id);
+
+    @Query(value = "select id as \"id\", id as \"goalId\", name as \"name\" from goals "
+        + "where id > :afterId and deleted_at is null order by id limit :limit", nativeQuery = true)
+    List<NameRow> findNamesAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * Goals in the id range whose stored task counters differ from their tasks, with both values.
+     * Goals with undrained goal_activity rows are expected to lag and are left out.
+     */
+    @Query(value = "select g.id as \"id\", g.total_tasks as \"storedTotal\", g.completed_tasks as \"storedCompleted\", "
+        + "count(t.id) as \"total\", count(t.id) filter (where t.completed) as \"completed\" "
+        + "from goals g left join tasks t on t.goal_id = g.id "
+        + "where g.id between :fromId and :toId and g.deleted_at is null "
+        + "and not exists (select 1 from goal_activity a where a.goal_id = g.id) "
+        + "group by g.id, g.total_tasks, g.completed_tasks "
+        + "having count(t.id) <> g.total_tasks or count(t.id) filter (where t.completed) <> g.completed_tasks",
+        nativeQuery = true)
+    List<CounterDrift> findCounterDrift(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    /** Overwrites the counters only if they still hold the values the drift was measured against. */
+    @Modifying
+    @Query(value = "update goals set total_tasks = :total, completed_tasks = :completed "
+        + "where id = :id and total_tasks = :storedTotal and completed_tasks = :storedCompleted", nativeQuery = true)
+    int repairCounters(@Param("id") Long id, @Param("storedTotal") long storedTotal, @Param("storedCompleted") long storedCompleted,
+        @Param("total") long total, @Param("completed") long completed);
+
+    @Query("select g from Goal g where g.id > :afterId order by g.id asc")
+    List<Goal> findPageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(value = "select * from goals where deleted_at is null "
+        + "order by updated_at desc, id desc limit :limit", nativeQuery = true)
+    List<Goal> findRecent(@Param("limit") int limit);
+
+    @Query(value = "select * from goals where deleted_at is null and (updated_at, id) < (:ts, :id) "
+        + "order by updated_at desc, id desc limit :limit", nativeQuery = true)
+    List<Goal> findRecentBefore(@Param("ts") Instant ts, @Param("id") Long id, @Param("limit") int limit);
+
+    @Query(value = "select * from goals where (updated_at, id) > (:since, :afterId) and deleted_at is null "
+        + "order by updated_at, id limit :limit", nativeQuery = true)
+    List<Goal> findChangedSince(@Param("since") Instant since, @Param("afterId") Long afterId, @Param("limit") int limit);
+
+    @Query("select g.id as id, g.updatedAt as updatedAt from Goal g where g.id in :ids")
+    List<EntityVersion> findVersionsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select g.updatedAt from Goal g where g.id = :id")
+    Optional<Instant> findUpdatedAtById(@Param("id") Long id);
+
+    @Query("select distinct g from Goal g left join fetch g.tasks where g.id = :id")
+    @QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
+    Optional<Goal> findWithTasksById(@Param("id") Long id);
+
+    @Modifying
+    @Query("delete from Goal g where g.id = :id")
+    int deleteDirectly(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "update goals set deleted_at = CURRENT_TIMESTAMP where id = :id and deleted_at is null", nativeQuery = true)
+    int markDeleted(@Param("id") Long id);
+
+    @Query(value = "select id from goals where deleted_at is not null order by deleted_at limit :limit", nativeQuery = true)
+    List<Long> findSoftDeletedIds(@Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "delete from goals where id = :id and deleted_at is not null", nativeQuery = true)
+    int purgeSoftDeleted(@Param("id") Long id);
+
+    @Query(value = "select cast(reltuples as bigint) from pg_class where relname = 'goals'", nativeQuery = true)
+    Long estimateRowCount();
+
+    Slice<Goal> findSliceBy(Pageable pageable);
+
+    @Query("select max(g.id) from Goal g")
+    Long findMaxId();
+
+    @Query("select g from Goal g where g.id between :fromId and :toId order by g.id")
+    List<Goal> findByIdRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query(value = "select id / :width as \"bucket\", count(*) as \"cnt\", cast(sum(id) as bigint) as \"idSum\", "
+        + "cast(sum(floor(extract(epoch from updated_at) * 1000)) as bigint) as \"tsSum\" "
+        + "from goals where id between :fromId and :toId and deleted_at is null group by 1", nativeQuery = true)
+    List<IdRangeDigest> digestByIdRange(@Param("fromId") Long fromId, @Param("toId") Long toId, @Param("width") long width);
 }
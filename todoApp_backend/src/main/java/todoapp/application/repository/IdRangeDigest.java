@@ -0,0 +1,9 @@
+package todoapp.application.repository;
+
+/** Per id-bucket digest: row count, sum of ids and sum of updated_at in epoch millis. */
+public interface IdRangeDigest {
+    Long getBucket();
+    Long getCnt();
+    Long getIdSum();
+    Long getTsSum();
+}
@@ -0,0 +1,113 @@
+package todoapp.application.repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+
+import todoapp.application.domain.Goal;
+import todoapp.application.domain.Task;
+
+/**
+ * List queries that select only the requested columns as tuples, so no entity
+ * is hydrated, put in the persistence context or dirty-checked. Rows come back
+ * as field name to value maps in the requested order; pages are slices
+ * (size + 1 rows fetched, no count).
+ */
+@Repository
+public class ListProjections {
+
+    /** Selectable goal fields and their entity paths. */
+    public static final Map<String, String> GOAL_FIELDS = fields(
+        "id", "id", "name", "name", "description", "description",
+        "deletionProtected", "deletionProtected", "createdAt", "createdAt", "updatedAt", "updatedAt",
+        "totalTasks", "totalTasks", "completedTasks", "completedTasks");
+
+    /** Selectable task fields; goalId reads the foreign key without joining goals. */
+    public static final Map<String, String> TASK_FIELDS = fields(
+        "id", "id", "goalId", "goal.id", "name", "name", "completed", "completed",
+        "createdAt", "createdAt", "updatedAt", "updatedAt");
+
+    private final EntityManager em;
+
+    public ListProjections(EntityManager em) {
+        this.em = em;
+    }
+
+    public Slice<Map<String, Object>> goals(List<String> fields, Pageable pageable) {
+        return select(Goal.class, GOAL_FIELDS, fields, null, pageable);
+    }
+
+    public Slice<Map<String, Object>> tasksOfGoal(Long goalId, List<String> fields, Pageable pageable) {
+        return select(Task.class, TASK_FIELDS, fields,
+            (cb, root) -> cb.and(cb.equal(path(root, "goal.id"), goalId), cb.isNull(path(root, "goal.deletedAt"))),
+            pageable);
+    }
+
+    private <T> Slice<Map<String, Object>> select(Class<T> type, Map<String, String> paths, List<String> fields,
+            BiFunction<CriteriaBuilder, Root<T>, Predicate> where, Pageable pageable) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> q = cb.createTupleQuery();
+        Root<T> root = q.from(type);
+
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (String f : fields) selections.add(path(root, paths.get(f)).alias(f));
+        q.multiselect(selections);
+        if (where != null) q.where(where.apply(cb, root));
+
+        List<Order> orders = new ArrayList<>();
+        boolean byId = false;
+        for (Sort.Order o : pageable.getSort()) {
+            Path<?> p = path(root, paths.get(o.getProperty()));
+            orders.add(o.isAscending() ? cb.asc(p) : cb.desc(p));
+            byId |= "id".equals(o.getProperty());
+        }
+        // tie-break on id so rows with equal sort keys do not move between pages
+        if (!byId) orders.add(cb.desc(root.get("id")));
+        q.orderBy(orders);
+
+        TypedQuery<Tuple> tq = em.createQuery(q);
+        tq.setFirstResult((int) pageable.getOffset());
+        tq.setMaxResults(pageable.getPageSize() + 1);
+        List<Tuple> rows = tq.getResultList();
+
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<Map<String, Object>> content = new ArrayList<>(Math.min(rows.size(), pageable.getPageSize()));
+        for (Tuple t : hasNext ? rows.subList(0, pageable.getPageSize()) : rows) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            for (String f : fields) m.put(f, t.get(f));
+            content.add(m);
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    private static Path<?> path(Root<?> root, String dotted) {
+        Path<?> p = root;
+        for (String part : dotted.split("\\.")) p = p.get(part);
+        return p;
+    }
+
+    private static Map<String, String> fields(String... pairs) {
+        Map<String, String> m = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) m.put(pairs[i], pairs[i + 1]);
+        return m;
+    }
+}
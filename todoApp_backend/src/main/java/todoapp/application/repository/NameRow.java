@@ -0,0 +1,8 @@
+package todoapp.application.repository;
+
+/** Id, owning goal and name of a goal or task row; for goals goalId is the goal's own id. */
+public interface NameRow {
+    Long getId();
+    Long getGoalId();
+    String getName();
+}
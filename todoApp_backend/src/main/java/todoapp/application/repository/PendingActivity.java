@@ -0,0 +1,11 @@
+package todoapp.application.repository;
+
+import java.time.Instant;
+
+/** Unflushed activity of one goal summed up: latest time and counter deltas. */
+public interface PendingActivity {
+    Long getGoalId();
+    Instant getAt();
+    Long getTotalDelta();
+    Long getCompletedDelta();
+}
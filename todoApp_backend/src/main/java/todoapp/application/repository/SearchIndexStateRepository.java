@@ -0,0 +1,8 @@
+package todoapp.application.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import todoapp.application.domain.SearchIndexState;
+
+public interface SearchIndexStateRepository extends JpaRepository<SearchIndexState, String> {
+}
@@ -0,0 +1,51 @@
+package todoapp.application.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import todoapp.application.domain.SearchOutbox;
+
+public interface SearchOutboxRepository extends JpaRepository<SearchOutbox, Long> {
+
+    /** Pending rows that are due and not leased, oldest first; rows in backoff do not hold up the ones behind them. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from SearchOutbox e where e.processedAt is null and e.parkedAt is null"
+        + " and e.nextAttemptAt <= :now and (e.claimedUntil is null or e.claimedUntil < :now) order by e.id asc")
+    List<SearchOutbox> findDue(@Param("now") Instant now, Pageable pageable);
+
+    /** Whether some relay holds an unexpired lease; settling a row clears its lease. */
+    @Query("select count(e) > 0 from SearchOutbox e where e.claimedUntil >= :now")
+    boolean existsLeasedAt(@Param("now") Instant now);
+
+    /** Transaction-scoped advisory lock, so only one instance claims at a time. */
+    @Query(value = "select pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryClaimLock(@Param("key") long key);
+
+    long countByProcessedAtIsNullAndParkedAtIsNull();
+
+    long countByParkedAtIsNotNull();
+
+    @Query("select coalesce(max(e.id), 0) from SearchOutbox e")
+    Long findMaxId();
+
+    /** Highest id among rows created before the given time, 0 if there is none. */
+    @Query("select coalesce(max(e.id), 0) from SearchOutbox e where e.createdAt < :before")
+    Long findMaxIdCreatedBefore(@Param("before") Instant before);
+
+    long countByIdGreaterThan(Long id);
+
+    List<SearchOutbox> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Modifying
+    @Query("delete from SearchOutbox e where e.processedAt < :cutoff")
+    int deleteProcessedBefore(@Param("cutoff") Instant cutoff);
+}
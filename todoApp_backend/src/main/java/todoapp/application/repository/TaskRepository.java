@@ -1,17 +1,123 @@
 package todoapp.application.repository;
 
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import todoapp.application.domain.Goal;
 import todoapp.application.domain.Task;
 
 
 public interface TaskRepository extends JpaRepository<Task, Long> {
-    Page<Task> findByGoalId(Long goalId, Pageable pageable);
+    // Lookups by goal id alone do not go through Goal's @Where, so the per-goal
+    // reads below check deleted_at themselves: tasks of a soft-deleted goal stay
+    // hidden until GoalPurger removes them.
+    @Query(value = "select t from Task t where t.goal.id = :goalId and t.goal.deletedAt is null",
+        countQuery = "select count(t) from Task t where t.goal.id = :goalId and t.goal.deletedAt is null")
+    Page<Task> findByGoalId(@Param("goalId") Long goalId, Pageable pageable);
 
-    List<Task> findByGoalIdOrderByIdAsc(Long goalId);
+    @Query("select t from Task t where t.goal.id = :goalId and t.goal.deletedAt is null")
+    Slice<Task> findSliceByGoalId(@Param("goalId") Long goalId, Pageable pageable);
+
+    @Query("select t from Task t where t.goal.id = :goalId and t.goal.deletedAt is null order by t.id asc")
+    List<Task> findByGoalIdOrderByIdAsc(@Param("goalId") Long goalId);
+
+    @Query("select t from Task t where t.id > :afterId and t.goal.deletedAt is null order by t.id asc")
+    List<Task> findLivePageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    boolean existsByGoalId(Long goalId);
+
+    @Query("select count(t) from Task t where t.goal.id = :goalId and t.goal.deletedAt is null")
+    long countByGoalId(@Param("goalId") Long goalId);
+
+    /** Number of the goal's tasks, counting no further than limit. */
+    @Query(value = "select count(*) from (select 1 from tasks where goal_id = :goalId limit :limit) t", nativeQuery = true)
+    long countByGoalIdUpTo(@Param("goalId") Long goalId, @Param("limit") long limit);
+
+    @Query("select t from Task t where t.id = :id and t.goal.deletedAt is null")
+    Optional<Task> findLiveById(@Param("id") Long id);
+
+    @Query("select t from Task t where t.id in :ids and t.goal.deletedAt is null")
+    List<Task> findLiveByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select count(t) from Task t where t.goal.deletedAt is null")
+    long countLive();
+
+    @Modifying
+    @Query(value = "delete from tasks where id in (select id from tasks where goal_id = :goalId limit :limit)", nativeQuery = true)
+    int deleteChunkByGoalId(@Param("goalId") Long goalId, @Param("limit") int limit);
+
+    @Modifying
+    @Query("delete from Task t where t.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // The rename/complete updates only match rows whose value actually changes, so a no-op writes nothing,
+    // and return the rows they changed.
+    /** Renames several of the goal's tasks in one statement; changes is a JSON array of {"id", "name"}. */
+    @Query(value = "update tasks t set name = v.name, updated_at = now() "
+        + "from json_to_recordset(cast(:changes as json)) as v(id bigint, name text) "
+        + "where t.id = v.id and t.goal_id = :goalId and t.name <> v.name "
+        + "returning t.id as \"id\", t.goal_id as \"goalId\", t.completed as \"completed\"", nativeQuery = true)
+    List<TaskState> renameAll(@Param("goalId") Long goalId, @Param("changes") String changes);
+
+    @Query(value = "update tasks set completed = :completed, updated_at = now() "
+        + "where goal_id = :goalId and id in (:ids) and completed <> :completed "
+        + "returning id as \"id\", goal_id as \"goalId\", completed as \"completed\"", nativeQuery = true)
+    List<TaskState> updateCompletedAll(@Param("goalId") Long goalId, @Param("ids") Collection<Long> ids,
+        @Param("completed") boolean completed);
+
+    @Query(value = "select t.id as \"id\", t.goal_id as \"goalId\", t.name as \"name\" from tasks t "
+        + "join goals g on g.id = t.goal_id and g.deleted_at is null "
+        + "where t.id > :afterId order by t.id limit :limit", nativeQuery = true)
+    List<NameRow> findNamesAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    @Query("select t.id as id, t.goal.id as goalId, t.completed as completed from Task t "
+        + "where t.id in :ids and t.goal.deletedAt is null")
+    List<TaskState> findStatesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update Task t set t.completed = :completed, t.updatedAt = CURRENT_TIMESTAMP where t.id in :ids")
+    int updateCompletedByIdIn(@Param("ids") Collection<Long> ids, @Param("completed") boolean completed);
+
+    @Modifying
+    @Query("update Task t set t.goal = :goal, t.updatedAt = CURRENT_TIMESTAMP where t.id in :ids")
+    int moveByIdIn(@Param("ids") Collection<Long> ids, @Param("goal") Goal goal);
+
+    @Query(value = "select t.* from tasks t join goals g on g.id = t.goal_id and g.deleted_at is null "
+        + "where t.goal_id = :goalId "
+        + "order by t.updated_at desc, t.id desc limit :limit", nativeQuery = true)
+    List<Task> findRecentByGoalId(@Param("goalId") Long goalId, @Param("limit") int limit);
+
+    @Query(value = "select t.* from tasks t join goals g on g.id = t.goal_id and g.deleted_at is null "
+        + "where t.goal_id = :goalId and (t.updated_at, t.id) < (:ts, :id) "
+        + "order by t.updated_at desc, t.id desc limit :limit", nativeQuery = true)
+    List<Task> findRecentByGoalIdBefore(@Param("goalId") Long goalId, @Param("ts") Instant ts,
+        @Param("id") Long id, @Param("limit") int limit);
+
+    @Query(value = "select * from tasks where (updated_at, id) > (:since, :afterId) "
+        + "and not exists (select 1 from goals g where g.id = tasks.goal_id and g.deleted_at is not null) "
+        + "order by updated_at, id limit :limit", nativeQuery = true)
+    List<Task> findChangedSince(@Param("since") Instant since, @Param("afterId") Long afterId, @Param("limit") int limit);
+
+    @Query("select max(t.id) from Task t")
+    Long findMaxId();
+
+    @Query("select t from Task t where t.id between :fromId and :toId and t.goal.deletedAt is null order by t.id")
+    List<Task> findByIdRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query(value = "select id / :width as \"bucket\", count(*) as \"cnt\", cast(sum(id) as bigint) as \"idSum\", "
+        + "cast(sum(floor(extract(epoch from updated_at) * 1000)) as bigint) as \"tsSum\" "
+        + "from tasks where id between :fromId and :toId "
+        + "and not exists (select 1 from goals g where g.id = tasks.goal_id and g.deleted_at is not null) group by 1", nativeQuery = true)
+    List<IdRangeDigest> digestByIdRange(@Param("fromId") Long fromId, @Param("toId") Long toId, @Param("width") long width);
 }
@@ -0,0 +1,8 @@
+package todoapp.application.repository;
+
+/** Id, owning goal and completion flag of a task, without loading the entity. */
+public interface TaskState {
+    Long getId();
+    Long getGoalId();
+    Boolean getCompleted();
+}
@@ -0,0 +1,21 @@
+package todoapp.application.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Task counter changes of several goals, summed per goal and recorded once each. */
+class CounterDeltas {
+
+    private final Map<Long, long[]> byGoal = new LinkedHashMap<>();
+
+    void add(Long goalId, long totalDelta, long completedDelta) {
+        long[] d = byGoal.computeIfAbsent(goalId, k -> new long[2]);
+        d[0] += totalDelta;
+        d[1] += completedDelta;
+    }
+
+    /** Records every touched goal, including ones whose deltas cancel out, so their activity time still moves. */
+    void recordTo(GoalActivityAccumulator activity) {
+        byGoal.forEach((id, d) -> activity.record(id, d[0], d[1]));
+    }
+}
@@ -0,0 +1,138 @@
+package todoapp.application.service;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import todoapp.application.domain.GoalActivity;
+import todoapp.application.repository.DrainedActivity;
+import todoapp.application.repository.GoalActivityRepository;
+import todoapp.application.repository.PendingActivity;
+import todoapp.application.service.search.SolrIndexService;
+
+/**
+ * Write-behind for goal "last activity" bumps and task counter changes caused
+ * by task writes.
+ *
+ * Task writes insert a goal_activity row (goal id, time, counter deltas) in
+ * their own transaction instead of updating the goal row, so concurrent task
+ * writes under one goal (the unassigned goal in particular) no longer queue on
+ * its row lock, and a crash loses nothing that committed. A scheduled flush
+ * drains the rows into the goals, latest time with greatest() and deltas
+ * summed, and queues the matching search index refresh. goals.updated_at and
+ * the counters may therefore lag by up to app.goal-activity.flush-interval-ms;
+ * keep that well below app.search.catch-up.overlap-ms. Readers overlay the
+ * undrained part.
+ */
+@Component
+public class GoalActivityAccumulator {
+
+    private static final Logger log = LoggerFactory.getLogger(GoalActivityAccumulator.class);
+
+    // advisory lock key, "goal_act" in ASCII
+    static final long DRAIN_LOCK = 0x676f616c5f616374L;
+
+    /** Unflushed activity of one goal: latest time and task counter deltas. */
+    public static final class Activity {
+        final Instant at;
+        final long totalDelta;
+        final long completedDelta;
+
+        public Activity(Instant at, long totalDelta, long completedDelta) {
+            this.at = at;
+            this.totalDelta = totalDelta;
+            this.completedDelta = completedDelta;
+        }
+
+        public long getTotalDelta() { return totalDelta; }
+
+        public long getCompletedDelta() { return completedDelta; }
+    }
+
+    private final GoalActivityRepository activities;
+    private final SolrIndexService solr;
+    private final TransactionTemplate tx;
+
+    @Value("${app.goal-activity.flush-batch-size:5000}")
+    int batchSize;
+
+    public GoalActivityAccumulator(GoalActivityRepository activities, SolrIndexService solr,
+            PlatformTransactionManager txManager) {
+        this.activities = activities;
+        this.solr = solr;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    /** Records activity in the current transaction, so it commits or rolls back with the task write. */
+    public void record(Long goalId) {
+        record(goalId, 0, 0);
+    }
+
+    /** Same as {@link #record(Long)}, also adjusting the goal's total_tasks / completed_tasks. */
+    public void record(Long goalId, long totalDelta, long completedDelta) {
+        GoalActivity a = new GoalActivity();
+        a.setGoalId(goalId);
+        a.setAt(Instant.now());
+        a.setTotalDelta(Math.toIntExact(totalDelta));
+        a.setCompletedDelta(Math.toIntExact(completedDelta));
+        activities.save(a);
+    }
+
+    /** The goal's updated_at including activity that has not been flushed yet. */
+    public Instant effectiveUpdatedAt(Long goalId, Instant stored) {
+        return effectiveUpdatedAt(stored, pending(goalId));
+    }
+
+    /** The stored updated_at overlaid with the given unflushed activity, which may be null. */
+    public static Instant effectiveUpdatedAt(Instant stored, Activity pending) {
+        return (pending != null && (stored == null || pending.at.isAfter(stored))) ? pending.at : stored;
+    }
+
+    /** Unflushed activity of the goal, or null. */
+    public Activity pending(Long goalId) {
+        return pending(List.of(goalId)).get(goalId);
+    }
+
+    /** Unflushed activity of each of the goals that has any, in one query. */
+    public Map<Long, Activity> pending(Collection<Long> goalIds) {
+        Map<Long, Activity> out = new HashMap<>();
+        if (goalIds.isEmpty()) return out;
+        for (PendingActivity p : activities.sumByGoalIdIn(goalIds)) {
+            out.put(p.getGoalId(), new Activity(p.getAt(), p.getTotalDelta(), p.getCompletedDelta()));
+        }
+        return out;
+    }
+
+    @Scheduled(fixedDelayString = "${app.goal-activity.flush-interval-ms:1000}")
+    public void flush() {
+        try {
+            Integer drained;
+            do {
+                drained = tx.execute(status -> drainBatch());
+            } while (drained != null && drained >= batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Goal activity flush failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private int drainBatch() {
+        // one drain at a time across instances, so goal rows are never locked in opposite orders
+        if (!activities.tryDrainLock(DRAIN_LOCK)) return 0;
+        int rows = 0;
+        for (DrainedActivity d : activities.drain(batchSize)) {
+            solr.refreshGoal(d.getGoalId());
+            rows += d.getRows();
+        }
+        return rows;
+    }
+}
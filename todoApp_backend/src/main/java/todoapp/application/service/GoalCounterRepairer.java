@@ -0,0 +1,71 @@
+package todoapp.application.service;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import todoapp.application.repository.CounterDrift;
+import todoapp.application.repository.GoalRepository;
+
+/**
+ * Recomputes goals.total_tasks / completed_tasks from the tasks table and fixes
+ * rows that drifted, e.g. after a write path that bypasses
+ * {@link GoalActivityAccumulator}. Walks the goals in id ranges, one short
+ * transaction per range.
+ *
+ * Goals with undrained activity rows are skipped, since their stored counters
+ * are expected to lag; a task and its activity row commit together, so the
+ * drift query never counts one without the other. The update is also guarded
+ * by the values it read, so a drain landing in between wins.
+ */
+@Component
+public class GoalCounterRepairer {
+
+    private static final Logger log = LoggerFactory.getLogger(GoalCounterRepairer.class);
+
+    private final GoalRepository goals;
+    private final TransactionTemplate tx;
+
+    @Value("${app.goals.counters.repair.range-size:10000}")
+    long rangeSize;
+
+    public GoalCounterRepairer(GoalRepository goals, PlatformTransactionManager txManager) {
+        this.goals = goals;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    // The first run soon after startup also backfills goals written before the counter columns existed.
+    @Scheduled(initialDelayString = "${app.goals.counters.repair.initial-delay-ms:30000}",
+               fixedDelayString = "${app.goals.counters.repair.interval-ms:3600000}")
+    public void repair() {
+        Long maxId = tx.execute(s -> goals.findMaxId());
+        if (maxId == null) return;
+        int repaired = 0;
+        for (long from = 1; from <= maxId; from += rangeSize) {
+            long fromId = from;
+            try {
+                Integer n = tx.execute(s -> repairRange(fromId, fromId + rangeSize - 1));
+                if (n != null) repaired += n;
+            } catch (RuntimeException e) {
+                log.warn("Repairing goal counters from id {} failed, will retry: {}", fromId, e.getMessage());
+            }
+        }
+        if (repaired > 0) log.info("Repaired task counters of {} goals", repaired);
+    }
+
+    private int repairRange(long fromId, long toId) {
+        List<CounterDrift> drifted = goals.findCounterDrift(fromId, toId);
+        int repaired = 0;
+        for (CounterDrift d : drifted) {
+            repaired += goals.repairCounters(d.getId(), d.getStoredTotal(), d.getStoredCompleted(),
+                d.getTotal(), d.getCompleted());
+        }
+        return repaired;
+    }
+}
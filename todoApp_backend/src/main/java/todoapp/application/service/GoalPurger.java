@@ -0,0 +1,62 @@
+package todoapp.application.service;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import todoapp.application.repository.GoalRepository;
+import todoapp.application.repository.TaskRepository;
+
+/**
+ * Physically removes soft-deleted goals. Tasks are deleted in chunks, each in
+ * its own short transaction, so a huge goal never holds locks or a long
+ * transaction; the goal row goes last.
+ */
+@Component
+public class GoalPurger {
+
+    private static final Logger log = LoggerFactory.getLogger(GoalPurger.class);
+
+    private final GoalRepository goals;
+    private final TaskRepository tasks;
+    private final TransactionTemplate tx;
+
+    @Value("${app.goals.purge.chunk-size:1000}")
+    int chunkSize;
+
+    @Value("${app.goals.purge.goals-per-run:10}")
+    int goalsPerRun;
+
+    public GoalPurger(GoalRepository goals, TaskRepository tasks, PlatformTransactionManager txManager) {
+        this.goals = goals;
+        this.tasks = tasks;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    @Scheduled(initialDelayString = "${app.goals.purge.interval-ms:10000}",
+               fixedDelayString = "${app.goals.purge.interval-ms:10000}")
+    public void purge() {
+        List<Long> ids = tx.execute(s -> goals.findSoftDeletedIds(goalsPerRun));
+        if (ids == null) return;
+        for (Long id : ids) {
+            try {
+                long removed = 0;
+                while (true) {
+                    Integer n = tx.execute(s -> tasks.deleteChunkByGoalId(id, chunkSize));
+                    if (n == null || n == 0) break;
+                    removed += n;
+                }
+                tx.executeWithoutResult(s -> goals.purgeSoftDeleted(id));
+                log.info("Purged deleted goal {} ({} tasks)", id, removed);
+            } catch (RuntimeException e) {
+                log.warn("Purging deleted goal {} failed, will retry: {}", id, e.getMessage());
+            }
+        }
+    }
+}
@@ -2,8 +2,11 @@ package todoapp.application.service;
 
 
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -12,8 +15,13 @@ import java.util.stream.Collectors;
 
 import javax.persistence.EntityManager;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,8 +29,13 @@ import org.springframework.transaction.annotation.Transactional;
 import todoapp.application.domain.Goal;
 import todoapp.application.domain.Task;
 import todoapp.application.repository.GoalRepository;
+import todoapp.application.repository.ListProjections;
 import todoapp.application.repository.TaskRepository;
+import todoapp.application.repository.TaskState;
 import todoapp.application.service.search.SolrIndexService;
+import todoapp.application.web.KeysetCursor;
+import todoapp.application.web.ListTotal;
+import todoapp.application.web.dto.GoalPatchRequest;
 import todoapp.application.web.dto.GoalRequest;
 import todoapp.application.web.dto.TaskRequest;
 
@@ -32,12 +45,25 @@ public class GoalService {
     private final TaskRepository tasks;
     private final EntityManager em;
     private final SolrIndexService solr;
+    private final GoalActivityAccumulator activity;
+    private final ListCountEstimator counts;
+    private final ListProjections projections;
+    private final ObjectMapper json;
+
+    @Value("${app.goals.delete.soft-threshold:1000}")
+    long softDeleteThreshold;
 
-    public GoalService(GoalRepository goals, TaskRepository tasks, EntityManager em, SolrIndexService solr) { 
+    public GoalService(GoalRepository goals, TaskRepository tasks, EntityManager em, SolrIndexService solr,
+            GoalActivityAccumulator activity, ListCountEstimator counts, ListProjections projections,
+            ObjectMapper json) {
         this.goals = goals;
         this.tasks = tasks;
         this.em = em;
         this.solr = solr;
+        this.activity = activity;
+        this.counts = counts;
+        this.projections = projections;
+        this.json = json;
     }
 
     @Transactional(readOnly = true)
@@ -45,11 +71,58 @@ public class GoalService {
         return goals.findAll(pageable); 
     }
 
+    /** Like {@link #list(Pageable)}, with the total counted, estimated, or skipped. */
+    @Transactional(readOnly = true)
+    public Slice<Goal> list(Pageable pageable, ListTotal total) {
+        switch (total) {
+            case NONE:
+                return goals.findSliceBy(pageable);
+            case ESTIMATE:
+                return ListCountEstimator.withEstimate(goals.findSliceBy(pageable), counts.goals());
+            default:
+                return goals.findAll(pageable);
+        }
+    }
+
+    /** Only the given fields of each goal, as tuples; totals as in {@link #list(Pageable, ListTotal)}. */
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> listFields(List<String> fields, Pageable pageable, ListTotal total) {
+        Slice<Map<String, Object>> slice = projections.goals(fields, pageable);
+        switch (total) {
+            case NONE:
+                return slice;
+            case ESTIMATE:
+                return ListCountEstimator.withEstimate(slice, counts.goals());
+            default:
+                return ListCountEstimator.withEstimate(slice, goals.count());
+        }
+    }
+
+    /** Keyset page ordered by (updatedAt desc, id desc), starting after the cursor. */
+    @Transactional(readOnly = true)
+    public List<Goal> listAfter(KeysetCursor cursor, int limit) {
+        return cursor == null ? goals.findRecent(limit)
+            : goals.findRecentBefore(cursor.getUpdatedAt(), cursor.getId(), limit);
+    }
+
     @Transactional(readOnly = true)
     public Goal get(Long id) {
         return goals.findById(id).orElseThrow(() -> new IllegalArgumentException("goal not found: " + id));
     }
 
+    /** The goal with its tasks (ordered by id) in one fetch-join query. */
+    @Transactional(readOnly = true)
+    public Goal getWithTasks(Long id) {
+        return goals.findWithTasksById(id).orElseThrow(() -> new IllegalArgumentException("goal not found: " + id));
+    }
+
+    /** The goal's version for conditional GETs: updated_at including unflushed task activity. */
+    @Transactional(readOnly = true)
+    public Instant version(Long id) {
+        Instant stored = goals.findUpdatedAtById(id).orElseThrow(() -> new IllegalArgumentException("goal not found: " + id));
+        return activity.effectiveUpdatedAt(id, stored);
+    }
+
     @Transactional
     public Goal create(GoalRequest req) {
         List<TaskRequest> incoming = req.getTasks() != null ? req.getTasks() : Collections.emptyList();
@@ -65,22 +138,20 @@ public class GoalService {
             Goal unassigned = goals.findById(UNASSIGNED_GOAL_ID)
                 .orElseThrow(() -> new IllegalStateException("Unassigned goal (id = 1) does not exists."));
             
+            List<Task> created = new ArrayList<>(incoming.size());
             for (TaskRequest t : incoming) {
                 Task e = new Task();
                 e.setGoal(unassigned);
                 e.setName(t.getName().trim());
                 e.setCompleted(Boolean.TRUE.equals(t.getCompleted()));
-                tasks.save(e);
+                created.add(tasks.save(e));
             }
 
-            goals.touch(unassigned.getId());
-            em.flush();
-            em.clear();
-            
-            Goal reloaded = goals.findById(unassigned.getId())
-                .orElseThrow(() -> new IllegalStateException("Initial goal not found."));
-            solr.indexGoalWithTasks(reloaded, tasks.findByGoalIdOrderByIdAsc(unassigned.getId()));
-            return reloaded;
+            // The unassigned goal collects every quick-added task: only the new ones are indexed,
+            // and its timestamp is bumped write-behind instead of locking the shared row.
+            for (Task e : created) solr.indexTask(e);
+            activity.record(unassigned.getId(), created.size(), completedCount(created));
+            return unassigned;
         }
 
         if (!descBlank && nameBlank) {
@@ -91,15 +162,17 @@ public class GoalService {
         g.setName(req.getName().trim());
         g.setDescription(descBlank ? null : req.getDescription().trim());
         Goal saved = goals.save(g);
+        List<Task> created = new ArrayList<>(incoming.size());
         for (TaskRequest t : incoming) {
             Task e = new Task();
             e.setGoal(saved);
             e.setName(t.getName().trim());
             e.setCompleted(Boolean.TRUE.equals(t.getCompleted()));
-            tasks.save(e);
+            created.add(tasks.save(e));
         }
 
         solr.indexGoalWithTasks(saved, tasks.findByGoalIdOrderByIdAsc(saved.getId()));
+        activity.record(saved.getId(), created.size(), completedCount(created));
         return saved;
     }
 
@@ -112,26 +185,36 @@ public class GoalService {
         Map<Long, Task> existing = tasks.findByGoalId(id, Pageable.unpaged())
             .getContent().stream().collect(Collectors.toMap(Task::getId, x -> x));
         Set<Long> seen = new HashSet<>();
+        long totalDelta = 0;
+        long completedDelta = 0;
 
         List<TaskRequest> incoming = req.getTasks() != null ? req.getTasks() : Collections.emptyList();
         for (TaskRequest t: incoming) {
+            boolean completed = Boolean.TRUE.equals(t.getCompleted());
             if (t.getId() != null && existing.containsKey(t.getId())) {
                 Task e = existing.get(t.getId());
+                if (e.isCompleted() != completed) completedDelta += completed ? 1 : -1;
                 e.setName(t.getName().trim());
-                e.setCompleted(Boolean.TRUE.equals(t.getCompleted()));
+                e.setCompleted(completed);
                 tasks.save(e);
                 seen.add(t.getId());
             } else {
                 Task e = new Task();
                 e.setGoal(g);
                 e.setName(t.getName().trim());
-                e.setCompleted(Boolean.TRUE.equals(t.getCompleted()));
+                e.setCompleted(completed);
                 tasks.save(e);
+                totalDelta++;
+                if (completed) completedDelta++;
             }
         }
 
         for (Task e : existing.values()) {
-            if (!seen.contains(e.getId())) tasks.delete(e);
+            if (!seen.contains(e.getId())) {
+                tasks.delete(e);
+                totalDelta--;
+                if (e.isCompleted()) completedDelta--;
+            }
         }
 
         long count = tasks.findByGoalId(id, Pageable.unpaged()).getTotalElements();
@@ -139,6 +222,7 @@ public class GoalService {
             throw new IllegalStateException("At least one task is required.");
         }
         goals.touch(id);
+        activity.record(id, totalDelta, completedDelta);
         em.flush();
         em.clear();
         Goal reloaded = goals.findById(id).orElseThrow(() -> new IllegalArgumentException("goal not found: " + id));
@@ -146,11 +230,123 @@ public class GoalService {
         return reloaded;
     }
 
+    /**
+     * Applies a delta to a goal: field changes, added, updated and removed tasks.
+     * Removals, renames and completion changes take one statement each (two for
+     * completion, one per target value) however many tasks they touch; unchanged
+     * rows are not written, and only the affected documents are reindexed.
+     */
+    @Transactional
+    public Goal patch(Long id, GoalPatchRequest req) {
+        Goal g = goals.findById(id).orElseThrow(() -> new IllegalArgumentException("goal not found: " + id));
+        boolean goalChanged = false;
+        if (req.getName() != null && !req.getName().equals(g.getName())) {
+            g.setName(req.getName());
+            goalChanged = true;
+        }
+        if (req.getDescription() != null && !req.getDescription().equals(g.getDescription())) {
+            g.setDescription(req.getDescription());
+            goalChanged = true;
+        }
+
+        List<Long> remove = req.getRemove() != null ? req.getRemove() : Collections.emptyList();
+        List<GoalPatchRequest.TaskChange> update = req.getUpdate() != null ? req.getUpdate() : Collections.emptyList();
+        List<TaskRequest> add = req.getAdd() != null ? req.getAdd() : Collections.emptyList();
+
+        boolean tasksChanged = false;
+        long totalDelta = 0;
+        long completedDelta = 0;
+        if (!remove.isEmpty()) {
+            List<Long> owned = new ArrayList<>();
+            for (TaskState s : tasks.findStatesByIdIn(new HashSet<>(remove))) {
+                if (!s.getGoalId().equals(id)) continue;
+                owned.add(s.getId());
+                totalDelta--;
+                if (Boolean.TRUE.equals(s.getCompleted())) completedDelta--;
+            }
+            if (!owned.isEmpty()) {
+                tasks.deleteByIdIn(owned);
+                for (Long taskId : owned) solr.deleteTask(taskId);
+                tasksChanged = true;
+            }
+        }
+
+        // last change per task and field wins, as if applied in order
+        Map<Long, String> renames = new LinkedHashMap<>();
+        Map<Long, Boolean> toggles = new LinkedHashMap<>();
+        for (GoalPatchRequest.TaskChange c : update) {
+            if (c.getName() != null) renames.put(c.getId(), c.getName().trim());
+            if (c.getCompleted() != null) toggles.put(c.getId(), c.getCompleted());
+        }
+        Set<Long> renamed = new HashSet<>();
+        if (!renames.isEmpty()) {
+            for (TaskState s : tasks.renameAll(id, toJson(renames))) renamed.add(s.getId());
+        }
+        Set<Long> toggled = new HashSet<>();
+        for (boolean value : new boolean[] { true, false }) {
+            List<Long> ids = toggles.entrySet().stream()
+                .filter(e -> e.getValue() == value).map(Map.Entry::getKey).collect(Collectors.toList());
+            if (ids.isEmpty()) continue;
+            for (TaskState s : tasks.updateCompletedAll(id, ids, value)) {
+                toggled.add(s.getId());
+                completedDelta += value ? 1 : -1;
+            }
+        }
+        for (Long taskId : renamed) solr.indexTask(taskId);
+        for (Long taskId : toggled) {
+            if (!renamed.contains(taskId)) solr.refreshTask(taskId);
+        }
+        tasksChanged |= !renamed.isEmpty() || !toggled.isEmpty();
+
+        for (TaskRequest t : add) {
+            Task e = new Task();
+            e.setGoal(g);
+            e.setName(t.getName().trim());
+            e.setCompleted(Boolean.TRUE.equals(t.getCompleted()));
+            solr.indexTask(tasks.save(e));
+            totalDelta++;
+            if (e.isCompleted()) completedDelta++;
+            tasksChanged = true;
+        }
+
+        if (!remove.isEmpty() && !tasks.existsByGoalId(id)) {
+            throw new IllegalStateException("At least one task is required.");
+        }
+        if (goalChanged) solr.indexGoal(g);
+        // Counter changes always go through an activity row. A bare updated_at bump is
+        // only needed when tasks changed but the goal row itself was not written.
+        if (totalDelta != 0 || completedDelta != 0 || (tasksChanged && !goalChanged)) {
+            activity.record(id, totalDelta, completedDelta);
+        }
+        return g;
+    }
+
+    /** The renames as a JSON array of {"id", "name"} objects, for {@link TaskRepository#renameAll}. */
+    private String toJson(Map<Long, String> renames) {
+        List<Map<String, Object>> rows = new ArrayList<>(renames.size());
+        renames.forEach((taskId, name) -> rows.add(Map.of("id", taskId, "name", name)));
+        try {
+            return json.writeValueAsString(rows);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("cannot serialize task renames", e);
+        }
+    }
+
+    private static long completedCount(List<Task> list) {
+        return list.stream().filter(Task::isCompleted).count();
+    }
+
     @Transactional
     public List<Task> listTasks(Long goalId) {
         return tasks.findByGoalIdOrderByIdAsc(goalId);
     }
 
+    /**
+     * Small goals are deleted with one statement and the FK cascade removes their
+     * tasks. Goals with more than app.goals.delete.soft-threshold tasks are only
+     * marked deleted here and purged in chunks by {@link GoalPurger}.
+     * The Solr delete-by-query goes through the outbox either way.
+     */
     @Transactional
     public void delete(Long id) {
         Goal g = get(id);
@@ -158,6 +354,11 @@ public class GoalService {
             throw new IllegalStateException("This goal cannot be deleted.");
         }
         solr.deleteByGoalId(id);
-        goals.delete(g);
+        // probe at most threshold + 1 rows instead of counting a huge goal
+        if (tasks.countByGoalIdUpTo(id, softDeleteThreshold + 1) > softDeleteThreshold) {
+            goals.markDeleted(id);
+        } else {
+            goals.deleteDirectly(id);
+        }
     }
 }
@@ -0,0 +1,68 @@
+package todoapp.application.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import todoapp.application.repository.GoalRepository;
+import todoapp.application.repository.TaskRepository;
+
+/**
+ * Totals for list endpoints in estimate mode. The goal count comes from the
+ * planner statistics in pg_class; per-goal task counts are exact counts kept
+ * for app.list.count-cache-ttl-ms, so polling dashboards do not count on every call.
+ */
+@Component
+public class ListCountEstimator {
+
+    private static final int MAX_CACHED_GOALS = 10_000;
+
+    private static final class Cached {
+        final long count;
+        final long expiresAt;
+
+        Cached(long count, long expiresAt) {
+            this.count = count;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final GoalRepository goals;
+    private final TaskRepository tasks;
+    private final long ttlMs;
+    private final Map<Long, Cached> taskCounts = new ConcurrentHashMap<>();
+
+    public ListCountEstimator(GoalRepository goals, TaskRepository tasks,
+        @Value("${app.list.count-cache-ttl-ms:30000}") long ttlMs) {
+        this.goals = goals;
+        this.tasks = tasks;
+        this.ttlMs = ttlMs;
+    }
+
+    /** A Page over the slice whose total is the estimate, raised if the slice proves it too low. */
+    public static <T> Page<T> withEstimate(Slice<T> slice, long estimate) {
+        long seen = slice.getPageable().getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0);
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), Math.max(estimate, seen));
+    }
+
+    public long goals() {
+        Long estimate = goals.estimateRowCount();
+        // reltuples is -1 (or 0) until the table has been analyzed
+        return estimate != null && estimate > 0 ? estimate : goals.count();
+    }
+
+    public long tasksOfGoal(Long goalId) {
+        long now = System.currentTimeMillis();
+        Cached c = taskCounts.get(goalId);
+        if (c != null && c.expiresAt > now) return c.count;
+        long count = tasks.countByGoalId(goalId);
+        if (taskCounts.size() >= MAX_CACHED_GOALS) taskCounts.clear();
+        taskCounts.put(goalId, new Cached(count, now + ttlMs));
+        return count;
+    }
+}
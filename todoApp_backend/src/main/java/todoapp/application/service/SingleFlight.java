@@ -0,0 +1,85 @@
+package todoapp.application.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Coalesces concurrent identical loads: the first caller for a key runs the
+ * loader on its own thread, callers arriving while it is in flight wait for
+ * that result instead of hitting the backend again.
+ *
+ * A waiter that is not served within the wait timeout runs the loader itself.
+ * Results are shared between threads, so loaders must return values that are
+ * safe to share (DTOs, not managed entities).
+ */
+@Component
+public class SingleFlight {
+
+    private final ConcurrentHashMap<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+    private final long waitTimeoutMs;
+
+    public SingleFlight(MeterRegistry registry,
+        @Value("${app.single-flight.wait-timeout-ms:2000}") long waitTimeoutMs) {
+        this.registry = registry;
+        this.waitTimeoutMs = waitTimeoutMs;
+    }
+
+    /**
+     * Runs the loader, or joins the identical call already running.
+     * The flight name scopes the key and tags the singleflight.calls metric.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String flight, Object key, Supplier<T> loader) {
+        List<Object> k = List.of(flight, key);
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(k, mine);
+
+        if (running == null) {
+            count(flight, "leader");
+            try {
+                T value = loader.get();
+                mine.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(k, mine);
+            }
+        }
+
+        try {
+            T value = (T) running.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+            count(flight, "shared");
+            return value;
+        } catch (ExecutionException e) {
+            count(flight, "shared");
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        } catch (TimeoutException e) {
+            count(flight, "timeout");
+            return loader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            count(flight, "timeout");
+            return loader.get();
+        }
+    }
+
+    private void count(String flight, String outcome) {
+        registry.counter("singleflight.calls", "flight", flight, "outcome", outcome).increment();
+    }
+}
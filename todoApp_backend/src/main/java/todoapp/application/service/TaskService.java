@@ -1,15 +1,34 @@
 package todoapp.application.service;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import todoapp.application.domain.Goal;
 import todoapp.application.domain.Task;
 import todoapp.application.repository.GoalRepository;
+import todoapp.application.repository.ListProjections;
 import todoapp.application.repository.TaskRepository;
+import todoapp.application.repository.TaskState;
 import todoapp.application.service.search.SolrIndexService;
+import todoapp.application.web.KeysetCursor;
+import todoapp.application.web.ListTotal;
+import todoapp.application.web.dto.TaskBatchResult;
+import todoapp.application.web.dto.TaskBatchResult.Status;
 import todoapp.application.web.dto.TaskRequest;
 
 @Service
@@ -20,11 +39,21 @@ public class TaskService {
     private final TaskRepository tasks;
     private final GoalRepository goals;
     private final SolrIndexService solr;
+    private final GoalActivityAccumulator activity;
+    private final Validator validator;
+    private final ListCountEstimator counts;
+    private final ListProjections projections;
 
-    public TaskService(TaskRepository tasks, GoalRepository goals, SolrIndexService solr) {
+    public TaskService(TaskRepository tasks, GoalRepository goals, SolrIndexService solr,
+            GoalActivityAccumulator activity, Validator validator, ListCountEstimator counts,
+            ListProjections projections) {
         this.tasks = tasks;
         this.goals = goals;
         this.solr = solr;
+        this.activity = activity;
+        this.validator = validator;
+        this.counts = counts;
+        this.projections = projections;
     }
 
     @Transactional(readOnly = true)
@@ -37,9 +66,59 @@ public class TaskService {
         return tasks.findByGoalId(UNASSIGNED_GOAL_ID, pageable);
     }
 
+    /** Like {@link #listByGoal}, with the total counted, estimated, or skipped. */
+    @Transactional(readOnly = true)
+    public Slice<Task> listByGoal(Long goalId, Pageable pageable, ListTotal total) {
+        switch (total) {
+            case NONE:
+                return tasks.findSliceByGoalId(goalId, pageable);
+            case ESTIMATE:
+                return ListCountEstimator.withEstimate(tasks.findSliceByGoalId(goalId, pageable), counts.tasksOfGoal(goalId));
+            default:
+                return tasks.findByGoalId(goalId, pageable);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<Task> listUnassigned(Pageable pageable, ListTotal total) {
+        return listByGoal(UNASSIGNED_GOAL_ID, pageable, total);
+    }
+
+    /** Only the given fields of each task, as tuples; totals as in {@link #listByGoal(Long, Pageable, ListTotal)}. */
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> listByGoalFields(Long goalId, List<String> fields, Pageable pageable, ListTotal total) {
+        Slice<Map<String, Object>> slice = projections.tasksOfGoal(goalId, fields, pageable);
+        switch (total) {
+            case NONE:
+                return slice;
+            case ESTIMATE:
+                return ListCountEstimator.withEstimate(slice, counts.tasksOfGoal(goalId));
+            default:
+                return ListCountEstimator.withEstimate(slice, tasks.countByGoalId(goalId));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> listUnassignedFields(List<String> fields, Pageable pageable, ListTotal total) {
+        return listByGoalFields(UNASSIGNED_GOAL_ID, fields, pageable, total);
+    }
+
+    /** Keyset page of a goal's tasks ordered by (updatedAt desc, id desc), starting after the cursor. */
+    @Transactional(readOnly = true)
+    public List<Task> listByGoalAfter(Long goalId, KeysetCursor cursor, int limit) {
+        return cursor == null ? tasks.findRecentByGoalId(goalId, limit)
+            : tasks.findRecentByGoalIdBefore(goalId, cursor.getUpdatedAt(), cursor.getId(), limit);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Task> listUnassignedAfter(KeysetCursor cursor, int limit) {
+        return listByGoalAfter(UNASSIGNED_GOAL_ID, cursor, limit);
+    }
+
     @Transactional(readOnly = true)
     public Task get(Long taskId) {
-        return tasks.findById(taskId)
+        // tasks of a soft-deleted goal are gone as far as the API is concerned
+        return tasks.findLiveById(taskId)
             .orElseThrow(() -> new IllegalArgumentException("task not found: " + taskId));
     }
 
@@ -55,9 +134,8 @@ public class TaskService {
         t.setName(req.getName());
         t.setCompleted(Boolean.TRUE.equals(req.getCompleted()));
         Task saved = tasks.save(t);
-        goals.touch(goal.getId());
         solr.indexTask(saved);
-        goals.findById(goal.getId()).ifPresent(solr::indexGoal);
+        activity.record(goal.getId(), 1, saved.isCompleted() ? 1 : 0);
         return saved;
     }
 
@@ -65,6 +143,7 @@ public class TaskService {
     public Task update(Long taskId, TaskRequest req) {
         Task t = get(taskId);
         Long beforeGoalId = t.getGoal() != null ? t.getGoal().getId() : null;
+        int wasCompleted = t.isCompleted() ? 1 : 0;
         if (req.getName() != null) t.setName(req.getName());
         if (req.getCompleted() != null) t.setCompleted(req.getCompleted());
         if (req.getGoalId() != null) {
@@ -73,16 +152,14 @@ public class TaskService {
                 t.setGoal(g);
         }
         Task saved = tasks.save(t);
-        if (saved.getGoal() != null) {
-            goals.touch(saved.getGoal().getId());
-        }
-        if (beforeGoalId != null && !beforeGoalId.equals(saved.getGoal().getId())) {
-            goals.touch(beforeGoalId);
-        }
         solr.indexTask(saved);
-        if(saved.getGoal() != null) goals.findById(saved.getGoal().getId()).ifPresent(solr::indexGoal);
-        if (beforeGoalId != null && !beforeGoalId.equals(saved.getGoal().getId())) {
-            goals.findById(beforeGoalId).ifPresent(solr::indexGoal);
+        int isCompleted = saved.isCompleted() ? 1 : 0;
+        Long afterGoalId = saved.getGoal() != null ? saved.getGoal().getId() : null;
+        if (beforeGoalId != null && !beforeGoalId.equals(afterGoalId)) {
+            activity.record(beforeGoalId, -1, -wasCompleted);
+            if (afterGoalId != null) activity.record(afterGoalId, 1, isCompleted);
+        } else if (afterGoalId != null) {
+            activity.record(afterGoalId, 0, isCompleted - wasCompleted);
         }
         return saved;
     }
@@ -91,24 +168,124 @@ public class TaskService {
     public void delete(Long taskId) {
         Task t = get(taskId);
         Long goalId = t.getGoal() != null ? t.getGoal().getId() : null;
+        boolean wasCompleted = t.isCompleted();
         solr.deleteTask(taskId);
         tasks.delete(t);
         if (goalId != null) {
-            goals.touch(goalId);
-            goals.findById(goalId).ifPresent(solr::indexGoal);
+            activity.record(goalId, -1, wasCompleted ? -1 : 0);
         }
     }
 
     @Transactional
     public void setCompleted(Long taskId, boolean completed) {
         Task t = get(taskId);
+        boolean wasCompleted = t.isCompleted();
         t.setCompleted(completed);
         Task saved = tasks.save(t);
         if (t.getGoal() != null) {
-            goals.touch(t.getGoal().getId());
-            solr.indexTask(saved);
-            goals.findById(t.getGoal().getId()).ifPresent(solr::indexGoal);
+            solr.refreshTask(saved.getId());
+            activity.record(t.getGoal().getId(), 0, wasCompleted == completed ? 0 : (completed ? 1 : -1));
+        }
+    }
+
+    /**
+     * Creates all valid items in one transaction. Goals are resolved with one
+     * query and the inserts go through saveAll, so Hibernate can batch them.
+     */
+    @Transactional
+    public List<TaskBatchResult> createBatch(List<TaskRequest> items) {
+        Set<Long> goalIds = new HashSet<>();
+        for (TaskRequest r : items) goalIds.add(r.getGoalId() != null ? r.getGoalId() : UNASSIGNED_GOAL_ID);
+        Map<Long, Goal> goalById = goals.findAllById(goalIds).stream()
+            .collect(Collectors.toMap(Goal::getId, Function.identity()));
+
+        TaskBatchResult[] results = new TaskBatchResult[items.size()];
+        Map<Integer, Task> created = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            TaskRequest r = items.get(i);
+            Set<ConstraintViolation<TaskRequest>> violations = validator.validate(r);
+            if (!violations.isEmpty()) {
+                results[i] = TaskBatchResult.of(i, null, Status.INVALID, violations.iterator().next().getMessage());
+                continue;
+            }
+            Long goalId = r.getGoalId() != null ? r.getGoalId() : UNASSIGNED_GOAL_ID;
+            Goal goal = goalById.get(goalId);
+            if (goal == null) {
+                results[i] = TaskBatchResult.of(i, null, Status.NOT_FOUND, "goal not found: " + goalId);
+                continue;
+            }
+            Task t = new Task();
+            t.setGoal(goal);
+            t.setName(r.getName().trim());
+            t.setCompleted(Boolean.TRUE.equals(r.getCompleted()));
+            created.put(i, t);
         }
+
+        tasks.saveAll(created.values());
+        CounterDeltas deltas = new CounterDeltas();
+        created.forEach((i, t) -> {
+            results[i] = TaskBatchResult.of(i, t.getId(), Status.CREATED, null);
+            solr.indexTask(t);
+            deltas.add(t.getGoal().getId(), 1, t.isCompleted() ? 1 : 0);
+        });
+        deltas.recordTo(activity);
+        return List.of(results);
     }
 
+    /** Sets the completed flag of all listed tasks with one UPDATE; unchanged rows are skipped. */
+    @Transactional
+    public List<TaskBatchResult> setCompletedBatch(List<Long> ids, boolean completed) {
+        Map<Long, TaskState> states = statesById(ids);
+        List<Long> changed = new ArrayList<>();
+        for (TaskState s : states.values()) {
+            if (s.getCompleted() != completed) changed.add(s.getId());
+        }
+        if (!changed.isEmpty()) tasks.updateCompletedByIdIn(changed, completed);
+
+        CounterDeltas deltas = new CounterDeltas();
+        for (Long id : changed) {
+            solr.refreshTask(id);
+            deltas.add(states.get(id).getGoalId(), 0, completed ? 1 : -1);
+        }
+        deltas.recordTo(activity);
+        return itemResults(ids, states, new HashSet<>(changed));
+    }
+
+    /** Moves all listed tasks to one goal with one UPDATE; tasks already there are skipped. */
+    @Transactional
+    public List<TaskBatchResult> moveBatch(List<Long> ids, Long goalId) {
+        Goal target = goals.findById(goalId)
+            .orElseThrow(() -> new IllegalArgumentException("goal not found: " + goalId));
+        Map<Long, TaskState> states = statesById(ids);
+        List<Long> moved = new ArrayList<>();
+        CounterDeltas deltas = new CounterDeltas();
+        for (TaskState s : states.values()) {
+            if (s.getGoalId().equals(goalId)) continue;
+            moved.add(s.getId());
+            int c = Boolean.TRUE.equals(s.getCompleted()) ? 1 : 0;
+            deltas.add(s.getGoalId(), -1, -c);
+            deltas.add(goalId, 1, c);
+        }
+        if (!moved.isEmpty()) tasks.moveByIdIn(moved, target);
+
+        for (Long id : moved) solr.indexTask(id);
+        deltas.recordTo(activity);
+        return itemResults(ids, states, new HashSet<>(moved));
+    }
+
+    private Map<Long, TaskState> statesById(List<Long> ids) {
+        return tasks.findStatesByIdIn(new HashSet<>(ids)).stream()
+            .collect(Collectors.toMap(TaskState::getId, Function.identity()));
+    }
+
+    private static List<TaskBatchResult> itemResults(List<Long> ids, Map<Long, TaskState> states, Set<Long> changed) {
+        List<TaskBatchResult> out = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            Status status = !states.containsKey(id) ? Status.NOT_FOUND
+                : changed.contains(id) ? Status.UPDATED : Status.UNCHANGED;
+            out.add(TaskBatchResult.of(i, id, status, status == Status.NOT_FOUND ? "task not found: " + id : null));
+        }
+        return out;
+    }
 }
@@ -0,0 +1,42 @@
+package todoapp.application.service.search;
+
+import org.apache.solr.common.SolrInputDocument;
+
+public final class IndexOperation {
+
+    public enum Kind { UPSERT, PARTIAL, DELETE_BY_ID, DELETE_BY_QUERY }
+
+    private final Kind kind;
+    private final SolrInputDocument doc;
+    private final String target;
+
+    private IndexOperation(Kind kind, SolrInputDocument doc, String target) {
+        this.kind = kind;
+        this.doc = doc;
+        this.target = target;
+    }
+
+    public static IndexOperation upsert(SolrInputDocument doc) {
+        return new IndexOperation(Kind.UPSERT, doc, String.valueOf(doc.getFieldValue("id")));
+    }
+
+    /** Atomic update of an existing document; the doc holds "set" modifiers only. */
+    public static IndexOperation partial(SolrInputDocument doc) {
+        return new IndexOperation(Kind.PARTIAL, doc, String.valueOf(doc.getFieldValue("id")));
+    }
+
+    public static IndexOperation deleteById(String id) {
+        return new IndexOperation(Kind.DELETE_BY_ID, null, id);
+    }
+
+    public static IndexOperation deleteByQuery(String query) {
+        return new IndexOperation(Kind.DELETE_BY_QUERY, null, query);
+    }
+
+    public Kind getKind() { return kind; }
+
+    public SolrInputDocument getDoc() { return doc; }
+
+    /** Document id for UPSERT / PARTIAL / DELETE_BY_ID, query string for DELETE_BY_QUERY. */
+    public String getTarget() { return target; }
+}
@@ -0,0 +1,85 @@
+package todoapp.application.service.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import todoapp.application.domain.Goal;
+import todoapp.application.domain.SearchOutbox.EntityType;
+import todoapp.application.domain.Task;
+import todoapp.application.repository.GoalRepository;
+import todoapp.application.repository.TaskRepository;
+
+/**
+ * Reads the documents of a full index load in bounded pages: all goals, then
+ * the tasks of live goals, each walked by id with keyset pagination. Tasks are
+ * paged independently of their goals, so a goal with a huge task list is
+ * spread over many pages like any other. One read-only transaction per page.
+ */
+public final class IndexPager {
+
+    /** One page of documents, all of the same type, and the last id it covers. */
+    public static final class Page {
+        public final EntityType type;
+        public final long lastId;
+        public final List<SolrInputDocument> docs;
+
+        Page(EntityType type, long lastId, List<SolrInputDocument> docs) {
+            this.type = type;
+            this.lastId = lastId;
+            this.docs = docs;
+        }
+    }
+
+    private final GoalRepository goals;
+    private final TaskRepository tasks;
+    private final SolrIndexService index;
+    private final TransactionTemplate readTx;
+    private final int pageSize;
+
+    private EntityType type = EntityType.GOAL;
+    private long goalAfterId;
+    private long taskAfterId;
+
+    /** Starts after the given ids, so an interrupted load can resume from its last completed pages. */
+    public IndexPager(GoalRepository goals, TaskRepository tasks, SolrIndexService index,
+            TransactionTemplate readTx, int pageSize, long goalAfterId, long taskAfterId) {
+        this.goals = goals;
+        this.tasks = tasks;
+        this.index = index;
+        this.readTx = readTx;
+        this.pageSize = pageSize;
+        this.goalAfterId = goalAfterId;
+        this.taskAfterId = taskAfterId;
+    }
+
+    /** The next page, or null once goals and tasks are exhausted. */
+    public Page next() {
+        if (type == EntityType.GOAL) {
+            Page page = readTx.execute(s -> {
+                List<Goal> rows = goals.findPageAfterId(goalAfterId, PageRequest.of(0, pageSize));
+                if (rows.isEmpty()) return null;
+                List<SolrInputDocument> docs = new ArrayList<>(rows.size());
+                for (Goal g : rows) docs.add(index.toGoalDoc(g));
+                return new Page(EntityType.GOAL, rows.get(rows.size() - 1).getId(), docs);
+            });
+            if (page != null) {
+                goalAfterId = page.lastId;
+                return page;
+            }
+            type = EntityType.TASK;
+        }
+        Page page = readTx.execute(s -> {
+            List<Task> rows = tasks.findLivePageAfterId(taskAfterId, PageRequest.of(0, pageSize));
+            if (rows.isEmpty()) return null;
+            List<SolrInputDocument> docs = new ArrayList<>(rows.size());
+            for (Task t : rows) docs.add(index.toTaskDoc(t));
+            return new Page(EntityType.TASK, rows.get(rows.size() - 1).getId(), docs);
+        });
+        if (page != null) taskAfterId = page.lastId;
+        return page;
+    }
+}
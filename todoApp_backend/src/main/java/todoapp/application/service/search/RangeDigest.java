@@ -0,0 +1,38 @@
+package todoapp.application.service.search;
+
+import java.util.Objects;
+
+import todoapp.application.repository.IdRangeDigest;
+
+/** Cheap fingerprint of the documents in one id bucket, comparable between Postgres and Solr. */
+public final class RangeDigest {
+
+    public static final RangeDigest EMPTY = new RangeDigest(0, 0, 0);
+
+    private final long count;
+    private final long idSum;
+    private final long tsSum;
+
+    public RangeDigest(long count, long idSum, long tsSum) {
+        this.count = count;
+        this.idSum = idSum;
+        this.tsSum = tsSum;
+    }
+
+    public static RangeDigest of(IdRangeDigest d) {
+        return new RangeDigest(d.getCnt(), d.getIdSum(), d.getTsSum());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RangeDigest)) return false;
+        RangeDigest other = (RangeDigest) o;
+        return count == other.count && idSum == other.idSum && tsSum == other.tsSum;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(count, idSum, tsSum);
+    }
+}
@@ -0,0 +1,126 @@
+package todoapp.application.service.search;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import todoapp.application.domain.Goal;
+import todoapp.application.domain.SearchIndexState;
+import todoapp.application.domain.Task;
+import todoapp.application.repository.GoalRepository;
+import todoapp.application.repository.SearchIndexStateRepository;
+import todoapp.application.repository.TaskRepository;
+
+/**
+ * Incremental catch-up: reindexes only goals/tasks whose (updated_at, id) is
+ * past the stored watermark. Each run re-reads a small overlap window so rows
+ * from transactions that committed late with an older timestamp are not missed.
+ */
+@Component
+public class SearchCatchUpIndexer {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchCatchUpIndexer.class);
+    static final String GOALS = "catch-up-goals";
+    static final String TASKS = "catch-up-tasks";
+
+    private final GoalRepository goals;
+    private final TaskRepository tasks;
+    private final SearchIndexStateRepository states;
+    private final SolrIndexService solr;
+    private final TransactionTemplate tx;
+
+    @Value("${app.search.catch-up.scheduled:true}")
+    boolean scheduled;
+
+    @Value("${app.search.catch-up.page-size:500}")
+    int pageSize;
+
+    @Value("${app.search.catch-up.overlap-ms:60000}")
+    long overlapMs;
+
+    public SearchCatchUpIndexer(GoalRepository goals, TaskRepository tasks, SearchIndexStateRepository states,
+            SolrIndexService solr, PlatformTransactionManager txManager) {
+        this.goals = goals;
+        this.tasks = tasks;
+        this.states = states;
+        this.solr = solr;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    @Scheduled(initialDelayString = "${app.search.catch-up.interval-ms:300000}",
+               fixedDelayString = "${app.search.catch-up.interval-ms:300000}")
+    public void scheduledCatchUp() {
+        if (scheduled) catchUp();
+    }
+
+    public synchronized void catchUp() {
+        int g = run(GOALS, (since, afterId) -> goals.findChangedSince(since, afterId, pageSize),
+            solr::indexGoalsBulk, Goal::getUpdatedAt, Goal::getId);
+        int t = run(TASKS, (since, afterId) -> tasks.findChangedSince(since, afterId, pageSize),
+            solr::indexTasksBulk, Task::getUpdatedAt, Task::getId);
+        if (g + t > 0) log.info("Search catch-up reindexed {} goals and {} tasks", g, t);
+    }
+
+    /** Moves both watermarks to the given instant, e.g. after a completed full reindex. */
+    public synchronized void markCaughtUp(Instant at) {
+        tx.executeWithoutResult(status -> {
+            save(GOALS, at, 0L);
+            save(TASKS, at, 0L);
+        });
+    }
+
+    private interface PageFetcher<T> {
+        List<T> fetch(Instant since, Long afterId);
+    }
+
+    private <T> int run(String name, PageFetcher<T> fetcher, Consumer<List<T>> index,
+            Function<T, Instant> updatedAt, Function<T, Long> id) {
+        SearchIndexState state = tx.execute(status -> states.findById(name).orElse(null));
+        Instant since = (state != null && state.getWatermarkAt() != null)
+            ? state.getWatermarkAt().minusMillis(overlapMs) : Instant.EPOCH;
+        long afterId = 0L;
+        int total = 0;
+
+        while (true) {
+            final Instant s = since;
+            final long a = afterId;
+            List<T> page = tx.execute(status -> {
+                List<T> rows = fetcher.fetch(s, a);
+                if (!rows.isEmpty()) index.accept(rows);
+                return rows;
+            });
+            if (page == null || page.isEmpty()) break;
+
+            T last = page.get(page.size() - 1);
+            since = updatedAt.apply(last);
+            afterId = id.apply(last);
+            total += page.size();
+            final Instant wm = since;
+            final long wmId = afterId;
+            tx.executeWithoutResult(status -> save(name, wm, wmId));
+            if (page.size() < pageSize) break;
+        }
+        return total;
+    }
+
+    private void save(String name, Instant watermarkAt, long lastId) {
+        SearchIndexState s = states.findById(name).orElseGet(() -> {
+            SearchIndexState created = new SearchIndexState();
+            created.setName(name);
+            return created;
+        });
+        if (s.getWatermarkAt() != null && s.getWatermarkAt().isAfter(watermarkAt)) return;
+        s.setWatermarkAt(watermarkAt);
+        s.setLastId(lastId);
+        states.save(s);
+    }
+}
@@ -0,0 +1,120 @@
+package todoapp.application.service.search;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrInputDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes batches of index operations to Solr with commitWithin, so Solr folds
+ * them into soft commits instead of a hard commit per call.
+ *
+ * PARTIAL operations are sent as atomic "set" updates guarded by _version_=1,
+ * so they only apply to documents that already exist. Because the touched
+ * fields are docValues-only, Solr performs them in place without re-analyzing
+ * the document. A partial update for a missing document is dropped rather
+ * than failing the batch, and the reconciler restores the full document later.
+ *
+ * Every write to the live core bumps an index generation, which readers use to
+ * tell whether a result they cached is still current, and is passed on to the
+ * {@link SuggestIndex} once Solr accepted it.
+ */
+@Component
+public class SearchIndexWriter {
+
+    private final SolrClient solr;
+    private final String collection;
+    private final SuggestIndex suggest;
+    private final int visibilityMs;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile long lastWriteAt;
+
+    public SearchIndexWriter(
+        SolrClient solr,
+        @Value("${app.search.collection:todoapp}") String collection,
+        SuggestIndex suggest,
+        @Value("${app.search.indexing.visibility-sla-ms:1000}") int visibilityMs
+    ) {
+        this.solr = solr;
+        this.collection = collection;
+        this.suggest = suggest;
+        this.visibilityMs = visibilityMs;
+    }
+
+    public int getVisibilityMs() { return visibilityMs; }
+
+    public long generation() { return generation.get(); }
+
+    /**
+     * True once the last write to the live core is older than the visibility SLA,
+     * i.e. a query issued now sees everything written so far.
+     */
+    public boolean isSettled() {
+        return System.currentTimeMillis() - lastWriteAt >= visibilityMs;
+    }
+
+    /** Records a change to the live core made outside {@link #apply}, such as a core swap. */
+    public void markChanged() {
+        lastWriteAt = System.currentTimeMillis();
+        generation.incrementAndGet();
+    }
+
+    /** Writes the operations on the caller's thread, preserving their order. */
+    public void apply(List<IndexOperation> ops) {
+        apply(collection, ops, visibilityMs);
+    }
+
+    /** Same as {@link #apply(List)} against another core; commitWithinMs &lt; 0 leaves committing to the caller. */
+    public void apply(String collection, List<IndexOperation> ops, int commitWithinMs) {
+        if (ops == null || ops.isEmpty()) return;
+        boolean live = this.collection.equals(collection);
+        try {
+            int i = 0;
+            while (i < ops.size()) {
+                IndexOperation.Kind kind = ops.get(i).getKind();
+                int j = i;
+                while (j < ops.size() && ops.get(j).getKind() == kind) j++;
+                List<IndexOperation> run = ops.subList(i, j);
+                switch (kind) {
+                    case UPSERT:
+                        Map<String, SolrInputDocument> docs = new LinkedHashMap<>();
+                        for (IndexOperation op : run) docs.put(op.getTarget(), op.getDoc());
+                        solr.add(collection, docs.values(), commitWithinMs);
+                        break;
+                    case PARTIAL:
+                        Map<String, SolrInputDocument> partials = new LinkedHashMap<>();
+                        for (IndexOperation op : run) partials.put(op.getTarget(), op.getDoc());
+                        UpdateRequest update = new UpdateRequest();
+                        update.add(partials.values());
+                        update.setParam("failOnVersionConflicts", "false");
+                        if (commitWithinMs >= 0) update.setCommitWithin(commitWithinMs);
+                        update.process(solr, collection);
+                        break;
+                    case DELETE_BY_ID:
+                        List<String> ids = new ArrayList<>();
+                        for (IndexOperation op : run) ids.add(op.getTarget());
+                        solr.deleteById(collection, ids, commitWithinMs);
+                        break;
+                    case DELETE_BY_QUERY:
+                        for (IndexOperation op : run) solr.deleteByQuery(collection, op.getTarget(), commitWithinMs);
+                        break;
+                }
+                i = j;
+            }
+            if (live) suggest.accept(ops);
+        } catch (SolrServerException | IOException e) {
+            throw new RuntimeException("Solr index failed", e);
+        } finally {
+            if (live) markChanged();
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package todoapp.application.service.search;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import todoapp.application.domain.Goal;
+import todoapp.application.domain.SearchOutbox;
+import todoapp.application.domain.SearchOutbox.EntityType;
+import todoapp.application.domain.SearchOutbox.Operation;
+import todoapp.application.domain.Task;
+import todoapp.application.repository.GoalRepository;
+import todoapp.application.repository.SearchOutboxRepository;
+import todoapp.application.repository.TaskRepository;
+
+/**
+ * Ships pending search_outbox rows to Solr in id order. Documents are rebuilt
+ * from the current database state, so delivering a row twice, or after a later
+ * row for the same entity, is harmless.
+ *
+ * Due rows are claimed with a lease (claimed_until) and shipped outside any
+ * transaction. While one relay holds a lease, the others wait, so instances
+ * never write concurrently; rows in backoff are passed over rather than
+ * blocking the due rows behind them. A lease left behind by
+ * a crashed relay simply expires.
+ *
+ * A row whose document cannot be resolved or is rejected by Solr fails on its
+ * own and is retried with exponential backoff. After
+ * app.search.outbox.max-attempts failures it is parked (parked_at) and counted
+ * by the search.outbox.parked gauge; clearing parked_at requeues it. When Solr
+ * is unreachable nothing is charged and the whole stream backs off instead.
+ */
+@Component
+public class SearchOutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchOutboxRelay.class);
+
+    // advisory lock key, "search_o" in ASCII
+    private static final long CLAIM_LOCK = 0x7365617263685f6fL;
+
+    private final SearchOutboxRepository outbox;
+    private final GoalRepository goals;
+    private final TaskRepository tasks;
+    private final SolrIndexService solr;
+    private final SearchIndexWriter writer;
+    private final TransactionTemplate tx;
+
+    private final int batchSize;
+    private final long maxBatchWaitMs;
+    private final long pollIntervalMs;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final Duration retention;
+    private final int maxAttempts;
+    private final long claimLeaseMs;
+
+    private final Semaphore wakeUp = new Semaphore(0);
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMs = new AtomicLong();
+    private final AtomicLong parked = new AtomicLong();
+    private Instant lastCleanup = Instant.EPOCH;
+    // consecutive rounds in which Solr was unreachable; only the relay thread touches it
+    private int outages;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public SearchOutboxRelay(
+        SearchOutboxRepository outbox,
+        GoalRepository goals,
+        TaskRepository tasks,
+        SolrIndexService solr,
+        SearchIndexWriter writer,
+        PlatformTransactionManager txManager,
+        MeterRegistry registry,
+        @Value("${app.search.indexing.batch-size:500}") int batchSize,
+        @Value("${app.search.indexing.max-batch-wait-ms:200}") long maxBatchWaitMs,
+        @Value("${app.search.outbox.poll-interval-ms:1000}") long pollIntervalMs,
+        @Value("${app.search.outbox.initial-backoff-ms:1000}") long initialBackoffMs,
+        @Value("${app.search.outbox.max-backoff-ms:60000}") long maxBackoffMs,
+        @Value("${app.search.outbox.retention-hours:24}") long retentionHours,
+        @Value("${app.search.outbox.max-attempts:10}") int maxAttempts,
+        @Value("${app.search.outbox.claim-lease-ms:60000}") long claimLeaseMs
+    ) {
+        this.outbox = outbox;
+        this.goals = goals;
+        this.tasks = tasks;
+        this.solr = solr;
+        this.writer = writer;
+        this.tx = new TransactionTemplate(txManager);
+        this.batchSize = batchSize;
+        this.maxBatchWaitMs = maxBatchWaitMs;
+        this.pollIntervalMs = pollIntervalMs;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.retention = Duration.ofHours(retentionHours);
+        this.maxAttempts = maxAttempts;
+        this.claimLeaseMs = claimLeaseMs;
+
+        Gauge.builder("search.outbox.pending", pending, AtomicLong::get)
+            .description("Outbox rows not yet shipped to Solr")
+            .register(registry);
+        Gauge.builder("search.outbox.lag", lagMs, v -> v.get() / 1000.0)
+            .description("Age of the oldest pending outbox row")
+            .baseUnit("seconds")
+            .register(registry);
+        Gauge.builder("search.outbox.parked", parked, AtomicLong::get)
+            .description("Outbox rows given up on after max-attempts; reset parked_at to retry them")
+            .register(registry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        worker = new Thread(this::relayLoop, "search-outbox-relay");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        wakeUp.release();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRecorded(SearchOutboxService.Recorded event) {
+        wakeUp.release();
+    }
+
+    private void relayLoop() {
+        while (running) {
+            int shipped = 0;
+            try {
+                shipped = relayOnce();
+                cleanupIfDue();
+            } catch (RuntimeException e) {
+                log.error("Search outbox relay failed: {}", e.getMessage());
+            }
+            if (shipped >= batchSize) continue;
+            try {
+                if (wakeUp.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS)) {
+                    // let concurrent transactions land so they share the next batch
+                    Thread.sleep(maxBatchWaitMs);
+                    wakeUp.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Ships one batch in three steps: claim the due rows and resolve their
+     * documents in a short transaction, send them to Solr with no transaction
+     * open, then record the outcome in a second short transaction.
+     */
+    int relayOnce() {
+        List<Claimed> claimed = tx.execute(status -> claim());
+        if (claimed == null || claimed.isEmpty()) return 0;
+
+        Outcome out = new Outcome();
+        List<Claimed> resolved = new ArrayList<>();
+        for (Claimed c : claimed) {
+            if (c.error != null) out.failed.put(c.id, c.error);
+            else resolved.add(c);
+        }
+        ship(resolved, out);
+        tx.executeWithoutResult(status -> settle(claimed, out));
+        return out.unavailable != null ? 0 : claimed.size();
+    }
+
+    private List<Claimed> claim() {
+        Instant now = Instant.now();
+        // another relay is shipping; wait for it so documents are not written out of order
+        if (!outbox.tryClaimLock(CLAIM_LOCK) || outbox.existsLeasedAt(now)) return List.of();
+        List<SearchOutbox> due = outbox.findDue(now, PageRequest.of(0, batchSize));
+        updateMetrics(due, now);
+        if (due.isEmpty()) return List.of();
+        for (SearchOutbox e : due) e.setClaimedUntil(now.plusMillis(claimLeaseMs));
+
+        List<Claimed> claimed = new ArrayList<>(due.size());
+        try {
+            List<IndexOperation> ops = resolve(due);
+            for (int i = 0; i < due.size(); i++) claimed.add(new Claimed(due.get(i).getId(), ops.get(i), null));
+        } catch (RuntimeException bulk) {
+            // find the rows that cannot be resolved, so only they fail
+            for (SearchOutbox e : due) {
+                try {
+                    claimed.add(new Claimed(e.getId(), resolve(List.of(e)).get(0), null));
+                } catch (RuntimeException ex) {
+                    claimed.add(new Claimed(e.getId(), null, "resolve failed: " + ex));
+                }
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Sends the rows' operations. When Solr rejects the batch, it is split in
+     * halves until the rejected rows are isolated, so one bad document fails
+     * only its own row. When Solr is unreachable or failing, shipping stops and
+     * the remaining rows are retried later without being charged an attempt.
+     */
+    private boolean ship(List<Claimed> rows, Outcome out) {
+        if (rows.isEmpty()) return true;
+        try {
+            List<IndexOperation> ops = new ArrayList<>(rows.size());
+            for (Claimed c : rows) ops.add(c.op);
+            writer.apply(ops);
+            for (Claimed c : rows) out.shipped.add(c.id);
+            return true;
+        } catch (RuntimeException ex) {
+            if (!isRejection(ex)) {
+                out.unavailable = ex;
+                return false;
+            }
+            if (rows.size() == 1) {
+                out.failed.put(rows.get(0).id, String.valueOf(ex.getMessage()));
+                return true;
+            }
+            int mid = rows.size() / 2;
+            return ship(rows.subList(0, mid), out) && ship(rows.subList(mid, rows.size()), out);
+        }
+    }
+
+    // SearchIndexWriter wraps transport errors; a SolrException below 500 is Solr refusing the request itself.
+    static boolean isRejection(RuntimeException ex) {
+        if (ex instanceof SolrException) return ((SolrException) ex).code() < 500;
+        Throwable cause = ex.getCause();
+        return !(cause instanceof SolrServerException || cause instanceof IOException);
+    }
+
+    private void settle(List<Claimed> claimed, Outcome out) {
+        Instant now = Instant.now();
+        if (out.unavailable != null) {
+            outages++;
+            log.warn("Solr unavailable, search outbox retry in {} ms: {}", backoffMs(outages), out.unavailable.getMessage());
+        } else {
+            outages = 0;
+        }
+        Map<Long, SearchOutbox> rows = outbox.findAllById(claimed.stream().map(c -> c.id).collect(Collectors.toList()))
+            .stream().collect(Collectors.toMap(SearchOutbox::getId, Function.identity()));
+        int parkedNow = 0;
+        for (Claimed c : claimed) {
+            SearchOutbox e = rows.get(c.id);
+            if (e == null) continue;
+            e.setClaimedUntil(null);
+            String error = out.failed.get(c.id);
+            if (out.shipped.contains(c.id)) {
+                e.setProcessedAt(now);
+            } else if (error != null) {
+                e.setAttempts(e.getAttempts() + 1);
+                e.setLastError(truncate(error, 1000));
+                if (e.getAttempts() >= maxAttempts) {
+                    e.setParkedAt(now);
+                    parkedNow++;
+                    log.error("Parked search outbox row #{} ({} {} {}) after {} attempts: {}",
+                        e.getId(), e.getOperation(), e.getEntityType(), e.getEntityId(), e.getAttempts(), error);
+                } else {
+                    e.setNextAttemptAt(now.plusMillis(backoffMs(e.getAttempts())));
+                    log.warn("Search outbox row #{} failed (attempt {}): {}", e.getId(), e.getAttempts(), error);
+                }
+            } else if (out.unavailable != null) {
+                e.setNextAttemptAt(now.plusMillis(backoffMs(outages)));
+                e.setLastError(truncate(out.unavailable.getMessage(), 1000));
+            }
+        }
+        if (parkedNow > 0) parked.addAndGet(parkedNow);
+    }
+
+    List<IndexOperation> resolve(List<SearchOutbox> due) {
+        Set<Long> goalIds = new HashSet<>();
+        Set<Long> taskIds = new HashSet<>();
+        for (SearchOutbox e : due) {
+            if (e.getOperation() == Operation.DELETE) continue;
+            if (e.getEntityType() == EntityType.GOAL) goalIds.add(e.getEntityId());
+            else taskIds.add(e.getEntityId());
+        }
+        Map<Long, Goal> goalById = goals.findAllById(goalIds).stream()
+            .collect(Collectors.toMap(Goal::getId, Function.identity()));
+        // tasks of a soft-deleted goal resolve to deletes, so a late upsert cannot bring them back
+        Map<Long, Task> taskById = (taskIds.isEmpty() ? List.<Task>of() : tasks.findLiveByIdIn(taskIds)).stream()
+            .collect(Collectors.toMap(Task::getId, Function.identity()));
+
+        List<IndexOperation> ops = new ArrayList<>(due.size());
+        for (SearchOutbox e : due) {
+            Long id = e.getEntityId();
+            if (e.getEntityType() == EntityType.GOAL) {
+                Goal g = goalById.get(id);
+                if (e.getOperation() == Operation.DELETE) {
+                    ops.add(IndexOperation.deleteByQuery("goal_id_l:" + id));
+                } else if (g != null && e.getOperation() == Operation.PARTIAL) {
+                    ops.add(IndexOperation.partial(solr.toGoalPartialDoc(g)));
+                } else if (g != null) {
+                    ops.add(IndexOperation.upsert(solr.toGoalDoc(g)));
+                } else {
+                    ops.add(IndexOperation.deleteById(solr.goalDocId(id)));
+                }
+            } else {
+                Task t = taskById.get(id);
+                if (e.getOperation() == Operation.UPSERT && t != null) {
+                    ops.add(IndexOperation.upsert(solr.toTaskDoc(t)));
+                } else if (e.getOperation() == Operation.PARTIAL && t != null) {
+                    ops.add(IndexOperation.partial(solr.toTaskPartialDoc(t)));
+                } else {
+                    ops.add(IndexOperation.deleteById(solr.taskDocId(id)));
+                }
+            }
+        }
+        return ops;
+    }
+
+    private static final class Claimed {
+        final Long id;
+        final IndexOperation op;
+        final String error;
+
+        Claimed(Long id, IndexOperation op, String error) {
+            this.id = id;
+            this.op = op;
+            this.error = error;
+        }
+    }
+
+    private static final class Outcome {
+        final Set<Long> shipped = new HashSet<>();
+        final Map<Long, String> failed = new HashMap<>();
+        RuntimeException unavailable;
+    }
+
+    private void updateMetrics(List<SearchOutbox> batch, Instant now) {
+        if (batch.isEmpty()) {
+            // nothing due, but rows may be waiting in backoff
+            pending.set(outbox.countByProcessedAtIsNullAndParkedAtIsNull());
+            lagMs.set(0);
+            return;
+        }
+        pending.set(batch.size() < batchSize ? batch.size() : outbox.countByProcessedAtIsNullAndParkedAtIsNull());
+        lagMs.set(Math.max(0, Duration.between(batch.get(0).getCreatedAt(), now).toMillis()));
+    }
+
+    private void cleanupIfDue() {
+        Instant now = Instant.now();
+        if (Duration.between(lastCleanup, now).compareTo(Duration.ofHours(1)) < 0) return;
+        lastCleanup = now;
+        Long parkedRows = tx.execute(status -> outbox.countByParkedAtIsNotNull());
+        if (parkedRows != null) parked.set(parkedRows);
+        Integer removed = tx.execute(status -> outbox.deleteProcessedBefore(now.minus(retention)));
+        if (removed != null && removed > 0) log.info("Removed {} processed search outbox rows", removed);
+    }
+
+    private long backoffMs(int attempts) {
+        long delay = initialBackoffMs << Math.min(attempts - 1, 20);
+        return Math.min(delay, maxBackoffMs);
+    }
+
+    private static String truncate(String s, int max) {
+        if (s == null) return null;
+        return s.length() <= max ? s : s.substring(0, max);
+    }
+}
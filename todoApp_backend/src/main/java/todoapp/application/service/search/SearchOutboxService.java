@@ -0,0 +1,47 @@
+package todoapp.application.service.search;
+
+import java.time.Instant;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import todoapp.application.domain.SearchOutbox;
+import todoapp.application.domain.SearchOutbox.EntityType;
+import todoapp.application.domain.SearchOutbox.Operation;
+import todoapp.application.repository.SearchOutboxRepository;
+
+/**
+ * Records index changes in the search_outbox table inside the caller's
+ * transaction, so they commit or roll back together with the goals/tasks rows.
+ */
+@Service
+public class SearchOutboxService {
+
+    /** Published for every recorded change; the relay wakes up once the transaction commits. */
+    public static final class Recorded {
+        private Recorded() {}
+    }
+
+    private static final Recorded RECORDED = new Recorded();
+
+    private final SearchOutboxRepository outbox;
+    private final ApplicationEventPublisher events;
+
+    public SearchOutboxService(SearchOutboxRepository outbox, ApplicationEventPublisher events) {
+        this.outbox = outbox;
+        this.events = events;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(EntityType type, Long entityId, Operation op) {
+        SearchOutbox e = new SearchOutbox();
+        e.setEntityType(type);
+        e.setEntityId(entityId);
+        e.setOperation(op);
+        e.setNextAttemptAt(Instant.now());
+        outbox.save(e);
+        events.publishEvent(RECORDED);
+    }
+}
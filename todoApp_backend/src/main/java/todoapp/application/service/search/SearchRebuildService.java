@@ -0,0 +1,236 @@
+package todoapp.application.service.search;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.CoreAdminRequest;
+import org.apache.solr.common.SolrInputDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import todoapp.application.domain.SearchOutbox;
+import todoapp.application.repository.GoalRepository;
+import todoapp.application.repository.SearchOutboxRepository;
+import todoapp.application.repository.TaskRepository;
+
+/**
+ * Rebuilds the whole index into a fresh shadow core while the live core keeps
+ * serving, then swaps the two with CoreAdmin SWAP.
+ *
+ * Changes made during the rebuild are replayed from the search outbox into the
+ * shadow core before the swap, and once more into the new live core after it.
+ * Outbox ids are only roughly in commit order, so each replay starts
+ * app.search.rebuild.replay-overlap-ms before the point it has to cover;
+ * replaying a row twice is harmless.
+ *
+ * Every run creates its shadow core in a fresh instanceDir. SWAP exchanges core
+ * names but not directories, so after a swap the live core is served from the
+ * previous run's directory and the old core, now named "_shadow", owns the other.
+ */
+@Service
+public class SearchRebuildService {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchRebuildService.class);
+
+    public enum State { IDLE, RUNNING, SUCCEEDED, FAILED }
+
+    public static final class Status {
+        public State state = State.IDLE;
+        public Instant startedAt;
+        public Instant finishedAt;
+        public long goalsIndexed;
+        public long tasksIndexed;
+        public String message;
+    }
+
+    private final SolrClient solr;
+    private final GoalRepository goals;
+    private final TaskRepository tasks;
+    private final SearchOutboxRepository outbox;
+    private final SearchOutboxRelay relay;
+    private final SolrIndexService index;
+    private final SearchIndexWriter writer;
+    private final TransactionTemplate readTx;
+    private final String collection;
+
+    @Value("${app.search.rebuild.config-set:_default}")
+    String configSet;
+
+    @Value("${app.search.rebuild.page-size:1000}")
+    int pageSize;
+
+    @Value("${app.search.rebuild.max-segments:1}")
+    int maxSegments;
+
+    @Value("${app.search.rebuild.keep-old-core:false}")
+    boolean keepOldCore;
+
+    @Value("${app.search.rebuild.replay-overlap-ms:60000}")
+    long replayOverlapMs;
+
+    /** Allowed relative difference between database and shadow counts, on top of the writes made meanwhile. */
+    @Value("${app.search.rebuild.verify-tolerance:0.001}")
+    double verifyTolerance;
+
+    private Status status = new Status();
+
+    public SearchRebuildService(SolrClient solr, GoalRepository goals, TaskRepository tasks,
+            SearchOutboxRepository outbox, SearchOutboxRelay relay, SolrIndexService index,
+            SearchIndexWriter writer, PlatformTransactionManager txManager,
+            @Value("${app.search.collection:todoapp}") String collection) {
+        this.solr = solr;
+        this.goals = goals;
+        this.tasks = tasks;
+        this.outbox = outbox;
+        this.relay = relay;
+        this.index = index;
+        this.writer = writer;
+        this.readTx = new TransactionTemplate(txManager);
+        this.readTx.setReadOnly(true);
+        this.collection = collection;
+    }
+
+    public synchronized Status status() {
+        Status copy = new Status();
+        copy.state = status.state;
+        copy.startedAt = status.startedAt;
+        copy.finishedAt = status.finishedAt;
+        copy.goalsIndexed = status.goalsIndexed;
+        copy.tasksIndexed = status.tasksIndexed;
+        copy.message = status.message;
+        return copy;
+    }
+
+    public synchronized Status start() {
+        if (status.state == State.RUNNING) {
+            throw new IllegalStateException("A search index rebuild is already running.");
+        }
+        status = new Status();
+        status.state = State.RUNNING;
+        status.startedAt = Instant.now();
+        Thread t = new Thread(this::rebuild, "search-rebuild");
+        t.setDaemon(true);
+        t.start();
+        return status();
+    }
+
+    private void rebuild() {
+        String shadow = collection + "_shadow";
+        try {
+            long replayFrom = watermark(Instant.now());
+
+            recreateShadow(shadow);
+            load(shadow);
+            long liveReplayFrom = watermark(Instant.now());
+            long replayed = replay(shadow, replayFrom, -1);
+            solr.commit(shadow);
+            if (maxSegments > 0) solr.optimize(shadow, true, true, maxSegments);
+            verify(shadow, replayed);
+
+            CoreAdminRequest.swapCore(collection, shadow, solr);
+            writer.markChanged();
+            log.info("Swapped rebuilt index into '{}'", collection);
+            replay(collection, liveReplayFrom, writer.getVisibilityMs());
+            if (!keepOldCore) CoreAdminRequest.unloadCore(shadow, true, true, solr);
+
+            finish(State.SUCCEEDED, null);
+        } catch (Exception e) {
+            log.error("Search index rebuild failed", e);
+            finish(State.FAILED, e.getMessage());
+        }
+    }
+
+    /** Last outbox id that is certainly committed by the given time, minus the replay overlap. */
+    private long watermark(Instant at) {
+        Long id = readTx.execute(s -> outbox.findMaxIdCreatedBefore(at.minusMillis(replayOverlapMs)));
+        return id != null ? id : 0L;
+    }
+
+    private void recreateShadow(String shadow) throws SolrServerException, IOException {
+        var existing = CoreAdminRequest.getStatus(shadow, solr).getCoreStatus(shadow);
+        if (existing != null && existing.size() > 0) {
+            var live = CoreAdminRequest.getStatus(collection, solr).getCoreStatus(collection);
+            Object liveDir = live != null ? live.get("instanceDir") : null;
+            if (Objects.equals(existing.get("instanceDir"), liveDir)) {
+                throw new IllegalStateException("Core '" + shadow + "' shares its instanceDir with '" + collection + "'");
+            }
+            CoreAdminRequest.unloadCore(shadow, true, true, solr);
+        }
+        CoreAdminRequest.Create create = new CoreAdminRequest.Create();
+        create.setCoreName(shadow);
+        create.setInstanceDir(collection + "_" + System.currentTimeMillis());
+        create.setConfigSet(configSet);
+        create.process(solr);
+        SearchSchema.ensureFields(solr, shadow);
+    }
+
+    /** Large batches with no commitWithin: nothing is opened for search until the final commit. */
+    private void load(String shadow) {
+        IndexPager pager = new IndexPager(goals, tasks, index, readTx, pageSize, 0, 0);
+        IndexPager.Page page;
+        while ((page = pager.next()) != null) {
+            List<IndexOperation> ops = new ArrayList<>(page.docs.size());
+            for (SolrInputDocument d : page.docs) ops.add(IndexOperation.upsert(d));
+            writer.apply(shadow, ops, -1);
+            synchronized (this) {
+                if (page.type == SearchOutbox.EntityType.GOAL) status.goalsIndexed += page.docs.size();
+                else status.tasksIndexed += page.docs.size();
+            }
+        }
+    }
+
+    /** Applies outbox rows after the given id to the target core. Returns the last replayed row id. */
+    private long replay(String target, long afterId, int commitWithinMs) {
+        long last = afterId;
+        while (true) {
+            final long a = last;
+            Long next = readTx.execute(s -> {
+                List<SearchOutbox> rows = outbox.findByIdGreaterThanOrderByIdAsc(a, PageRequest.of(0, pageSize));
+                if (rows.isEmpty()) return null;
+                writer.apply(target, relay.resolve(rows), commitWithinMs);
+                return rows.get(rows.size() - 1).getId();
+            });
+            if (next == null) return last;
+            last = next;
+        }
+    }
+
+    /**
+     * Compares document counts with the database. Writes keep landing after the
+     * replayed row, so the counts may differ by the outbox rows written since
+     * plus a small relative tolerance; anything beyond that means a broken load.
+     */
+    private void verify(String shadow, long replayed) throws SolrServerException, IOException {
+        Map<String, Long> expected = readTx.execute(s -> Map.of("goal", goals.count(), "task", tasks.countLive()));
+        Long since = readTx.execute(s -> outbox.countByIdGreaterThan(replayed));
+        for (var e : expected.entrySet()) {
+            SolrQuery q = new SolrQuery("*:*");
+            q.addFilterQuery("type:" + e.getKey());
+            q.setRows(0);
+            long actual = solr.query(shadow, q).getResults().getNumFound();
+            long allowed = (since != null ? since : 0L) + (long) Math.ceil(e.getValue() * verifyTolerance);
+            if (Math.abs(actual - e.getValue()) > allowed) {
+                throw new IllegalStateException("Shadow core has " + actual + " " + e.getKey()
+                    + " docs but the database has " + e.getValue() + " (allowed difference " + allowed + ")");
+            }
+        }
+    }
+
+    private synchronized void finish(State state, String message) {
+        status.state = state;
+        status.message = message;
+        status.finishedAt = Instant.now();
+    }
+}
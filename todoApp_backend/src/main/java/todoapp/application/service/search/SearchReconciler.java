@@ -0,0 +1,179 @@
+package todoapp.application.service.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import todoapp.application.domain.Goal;
+import todoapp.application.domain.Task;
+import todoapp.application.repository.GoalRepository;
+import todoapp.application.repository.IdRangeDigest;
+import todoapp.application.repository.TaskRepository;
+
+/**
+ * Anti-entropy between Postgres and Solr. The id space of goals and tasks is
+ * split into fixed-width buckets; each side computes (count, sum(id),
+ * sum(updated_at millis)) per bucket and only buckets whose digests differ are
+ * fetched and repaired, including orphan docs of deleted rows. Work per run is
+ * capped and paced so it can run continuously in production.
+ *
+ * Repairs are not written to Solr here but queued as outbox UPSERT rows, which
+ * the relay resolves from the database when it ships them. They are thus
+ * ordered with regular writes and can never put back a document older than
+ * one the relay wrote meanwhile; for ids whose row is gone the relay deletes the doc.
+ */
+@Component
+public class SearchReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchReconciler.class);
+
+    private final SolrIndexService solr;
+    private final TransactionTemplate readTx;
+    private final TransactionTemplate tx;
+
+    @Value("${app.search.reconcile.enabled:true}")
+    boolean enabled;
+
+    @Value("${app.search.reconcile.range-width:1000}")
+    long width;
+
+    @Value("${app.search.reconcile.ranges-per-query:50}")
+    int rangesPerQuery;
+
+    @Value("${app.search.reconcile.queries-per-run:20}")
+    int queriesPerRun;
+
+    @Value("${app.search.reconcile.pause-ms:200}")
+    long pauseMs;
+
+    private final Side<Goal> goalSide;
+    private final Side<Task> taskSide;
+
+    public SearchReconciler(GoalRepository goals, TaskRepository tasks, SolrIndexService solr,
+            PlatformTransactionManager txManager) {
+        this.solr = solr;
+        this.readTx = new TransactionTemplate(txManager);
+        this.readTx.setReadOnly(true);
+        this.tx = new TransactionTemplate(txManager);
+        this.goalSide = new Side<>("goal", goals::findMaxId, goals::digestByIdRange, goals::findByIdRange,
+            Goal::getId, g -> g.getUpdatedAt().toEpochMilli(), solr::indexGoal);
+        this.taskSide = new Side<>("task", tasks::findMaxId, tasks::digestByIdRange, tasks::findByIdRange,
+            Task::getId, t -> t.getUpdatedAt().toEpochMilli(), solr::indexTask);
+    }
+
+    @Scheduled(initialDelayString = "${app.search.reconcile.interval-ms:60000}",
+               fixedDelayString = "${app.search.reconcile.interval-ms:60000}")
+    public void scheduledReconcile() {
+        if (!enabled) return;
+        try {
+            int budget = queriesPerRun;
+            budget = reconcile(goalSide, budget);
+            reconcile(taskSide, budget);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Search reconcile failed: {}", e.getMessage());
+        }
+    }
+
+    /** Walks the buckets of one side from its cursor, wrapping around at the end. Returns the unused budget. */
+    private <T> int reconcile(Side<T> side, int budget) throws InterruptedException {
+        Long dbMax = readTx.execute(status -> side.maxId.get());
+        long maxId = Math.max(dbMax != null ? dbMax : 0L, solr.maxEntityId(side.type));
+        long lastBucket = maxId / width;
+
+        while (budget > 0) {
+            if (side.cursor > lastBucket) {
+                side.cursor = 0;
+                return budget;
+            }
+            long from = side.cursor;
+            long to = Math.min(from + rangesPerQuery, lastBucket + 1);
+
+            Map<Long, RangeDigest> dbDigests = readTx.execute(status ->
+                side.digest.apply(from * width, to * width - 1, width).stream()
+                    .collect(Collectors.toMap(IdRangeDigest::getBucket, RangeDigest::of)));
+            Map<Long, RangeDigest> solrDigests = solr.digestByIdRange(side.type, from, to, width);
+
+            for (long b = from; b < to; b++) {
+                RangeDigest db = dbDigests.getOrDefault(b, RangeDigest.EMPTY);
+                RangeDigest idx = solrDigests.getOrDefault(b, RangeDigest.EMPTY);
+                if (!db.equals(idx)) repair(side, b * width, (b + 1) * width - 1);
+            }
+
+            side.cursor = to;
+            budget--;
+            Thread.sleep(pauseMs);
+        }
+        return budget;
+    }
+
+    private <T> void repair(Side<T> side, long fromId, long toId) {
+        // Solr first: a doc only reaches Solr after its row committed, so a doc
+        // missing from the later DB read really is an orphan.
+        Map<Long, Long> indexed = solr.fetchVersionsByIdRange(side.type, fromId, toId);
+        List<Long> orphans = new ArrayList<>();
+        Integer stale = tx.execute(status -> {
+            List<T> rows = side.rows.apply(fromId, toId);
+            Map<Long, T> byId = rows.stream().collect(Collectors.toMap(side.id, Function.identity()));
+            int n = 0;
+            for (T row : rows) {
+                Long version = indexed.get(side.id.apply(row));
+                if (Objects.equals(version, side.version.apply(row))) continue;
+                side.enqueue.accept(side.id.apply(row));
+                n++;
+            }
+            for (Long id : indexed.keySet()) {
+                if (byId.containsKey(id)) continue;
+                side.enqueue.accept(id);
+                orphans.add(id);
+            }
+            return n;
+        });
+        log.info("Reconciled {} ids {}-{}: {} stale and {} orphan docs queued",
+            side.type, fromId, toId, stale, orphans.size());
+    }
+
+    private interface Digester {
+        List<IdRangeDigest> apply(Long fromId, Long toId, long width);
+    }
+
+    private interface RangeLoader<T> {
+        List<T> apply(Long fromId, Long toId);
+    }
+
+    private static final class Side<T> {
+        final String type;
+        final Supplier<Long> maxId;
+        final Digester digest;
+        final RangeLoader<T> rows;
+        final Function<T, Long> id;
+        final Function<T, Long> version;
+        final Consumer<Long> enqueue;
+        long cursor = 0;
+
+        Side(String type, Supplier<Long> maxId, Digester digest, RangeLoader<T> rows,
+                Function<T, Long> id, Function<T, Long> version, Consumer<Long> enqueue) {
+            this.type = type;
+            this.maxId = maxId;
+            this.digest = digest;
+            this.rows = rows;
+            this.id = id;
+            this.version = version;
+            this.enqueue = enqueue;
+        }
+    }
+}
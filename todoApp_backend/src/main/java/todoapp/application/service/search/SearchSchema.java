@@ -0,0 +1,39 @@
+package todoapp.application.service.search;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.schema.SchemaRequest;
+
+/** Field definitions of the todoapp core. Keep in sync with solr/Setup-SolrSchema.ps1. */
+public final class SearchSchema {
+
+    public static final List<Map<String, Object>> FIELDS = List.of(
+        Map.of("name", "type",          "type", "string",  "stored", true),
+        Map.of("name", "entity_id_l",   "type", "plong",   "stored", true),
+        Map.of("name", "goal_id_l",     "type", "plong",   "stored", true),
+        Map.of("name", "goal_name_ja",  "type", "text_ja", "stored", true),
+        Map.of("name", "task_name_ja",  "type", "text_ja", "stored", true),
+        Map.of("name", "updated_at_dt", "type", "pdate",   "stored", false, "indexed", false, "docValues", true),
+        Map.of("name", "completed_i",   "type", "pint",    "stored", false, "indexed", false, "docValues", true)
+    );
+
+    private SearchSchema() {}
+
+    /** Adds the fields missing from the given core. */
+    public static void ensureFields(SolrClient solr, String core) throws SolrServerException, IOException {
+        Set<String> existing = new HashSet<>();
+        for (Map<String, Object> f : new SchemaRequest.Fields().process(solr, core).getFields()) {
+            existing.add(String.valueOf(f.get("name")));
+        }
+        for (Map<String, Object> def : FIELDS) {
+            if (existing.contains(def.get("name"))) continue;
+            new SchemaRequest.AddField(def).process(solr, core);
+        }
+    }
+}
@@ -4,49 +4,61 @@ import java.io.IOException;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Date;
-import java.util.HashSet;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.json.JsonQueryRequest;
+import org.apache.solr.client.solrj.request.json.RangeFacetMap;
+import org.apache.solr.client.solrj.request.json.TermsFacetMap;
+import org.apache.solr.client.solrj.response.Group;
+import org.apache.solr.client.solrj.response.GroupCommand;
+import org.apache.solr.client.solrj.response.GroupResponse;
 import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.client.solrj.response.json.BucketJsonFacet;
+import org.apache.solr.client.solrj.response.json.NestableJsonFacet;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.apache.solr.common.params.GroupParams;
 import org.apache.solr.common.params.HighlightParams;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.HtmlUtils;
 
 import todoapp.application.domain.Goal;
+import todoapp.application.domain.SearchOutbox.EntityType;
+import todoapp.application.domain.SearchOutbox.Operation;
 import todoapp.application.domain.Task;
 
 @Service
 public class SolrIndexService {
 
-    private static final Logger log = LoggerFactory.getLogger(SolrIndexService.class);
     private final SolrClient solr;
     private final int defaultRows;
     private final String collection;
+    private final SearchOutboxService outbox;
+    private final SearchIndexWriter writer;
 
     public SolrIndexService(
         SolrClient solr, 
         @Value("${app.search.max-rows:50}") int defaultRows,
-        @Value("${app.search.collection:todoapp}") String collection 
+        @Value("${app.search.collection:todoapp}") String collection,
+        SearchOutboxService outbox,
+        SearchIndexWriter writer
     ) {
         this.solr = solr;
         this.defaultRows = defaultRows;
         this.collection = collection;
+        this.outbox = outbox;
+        this.writer = writer;
     }
 
     private static final String HL_PRE = "[[[HL]]]";
@@ -55,48 +67,80 @@ public class SolrIndexService {
     public static final class TaskHit {
         public Long id;
         public String nameHtml;
+        public boolean completed;
         public Instant updatedAt;
     }
 
     public static final class GoalHit {
         public Long goalId;
         public String goalNameHtml;
+        public Instant updatedAt;
         public List<TaskHit> tasks = new ArrayList<>();
     }
 
+    public static final class GoalHitPage {
+        public long totalGoals;
+        public String nextCursorMark;
+        public List<GoalHit> goals = new ArrayList<>();
+    }
+
+    /** Task counts per goal, per completion state and per day bucket of updated_at. */
+    public static final class TaskStats {
+        public long total;
+        public long completed;
+        public List<GoalCount> goals = new ArrayList<>();
+        public List<DayCount> days = new ArrayList<>();
+    }
+
+    public static final class GoalCount {
+        public Long goalId;
+        public long total;
+        public long completed;
+    }
+
+    public static final class DayCount {
+        public Instant start;
+        public long total;
+        public long completed;
+    }
+
     public void indexGoal(Goal g) {
-        SolrInputDocument doc = new SolrInputDocument();
-        doc.addField("id", goalDocId(g.getId()));
-        doc.addField("type", "goal");
-        doc.addField("goal_id_l", g.getId());
-        if (g.getName() != null) doc.addField("goal_name_ja", g.getName());
-        doc.addField("updated_at_dt", toDate(g.getUpdatedAt()));
-        addAndCommit(doc);
+        indexGoal(g.getId());
+    }
+
+    public void indexGoal(long goalId) {
+        outbox.record(EntityType.GOAL, goalId, Operation.UPSERT);
     }
 
     public void indexTask(Task t) {
-        SolrInputDocument doc = new SolrInputDocument();
-        doc.addField("id", taskDocId(t.getId()));
-        doc.addField("type", "task");
-        doc.addField("goal_id_l", t.getGoal().getId());
-        doc.addField("task_name_ja", t.getName());
-        doc.addField("updated_at_dt", toDate(t.getUpdatedAt()));
-        addAndCommit(doc);
+        indexTask(t.getId());
+    }
+
+    public void indexTask(long taskId) {
+        outbox.record(EntityType.TASK, taskId, Operation.UPSERT);
     }
 
     public void indexGoalWithTasks(Goal g, List<Task> tasks) {
-        List<SolrInputDocument> docs = new ArrayList<>();
-        docs.add(toGoalDoc(g));
-        for (Task t : tasks) docs.add(toTaskDoc(t));
-        addAndCommit(docs);
+        outbox.record(EntityType.GOAL, g.getId(), Operation.UPSERT);
+        for (Task t : tasks) outbox.record(EntityType.TASK, t.getId(), Operation.UPSERT);
+    }
+
+    /** Goal timestamp bump after a task change: an in-place update of updated_at_dt only. */
+    public void refreshGoal(long goalId) {
+        outbox.record(EntityType.GOAL, goalId, Operation.PARTIAL);
+    }
+
+    /** Completion toggle: an in-place update of completed_i and updated_at_dt only. */
+    public void refreshTask(long taskId) {
+        outbox.record(EntityType.TASK, taskId, Operation.PARTIAL);
     }
 
     public void deleteByGoalId(long goalId) {
-        deleteByQuery("goal_id_l:" + goalId);
+        outbox.record(EntityType.GOAL, goalId, Operation.DELETE);
     }
 
     public void deleteTask(long taskId) {
-        deleteById(taskDocId(taskId));
+        outbox.record(EntityType.TASK, taskId, Operation.DELETE);
     }
 
     public List<Long>searchGoalsIds(String keyword, Integer rows) {
@@ -120,43 +164,6 @@ public class SolrIndexService {
         }
     }
 
-    private void addAndCommit(SolrInputDocument doc) {
-        try {
-            solr.add(collection, doc);
-            solr.commit(collection);
-        } catch (SolrServerException | IOException e) {
-            throw new RuntimeException("Solr index failed", e);
-        }
-    }
-
-    private void addAndCommit(List<SolrInputDocument> docs) {
-        if (docs == null || docs.isEmpty()) return;
-        try {
-            solr.add(collection, docs);
-            solr.commit(collection);
-        } catch (SolrServerException | IOException e) {
-            throw new RuntimeException("Solr bulk index failed", e);
-        }
-    }
-
-    private void deleteById(String id) {
-        try {
-            solr.deleteById(collection, id);
-            solr.commit(collection);
-        } catch (SolrServerException | IOException e) {
-            throw new RuntimeException("Solr deleteById failed", e);
-        }
-    }
-
-    private void deleteByQuery(String q) {
-        try {
-            solr.deleteByQuery(collection, q);
-            solr.commit(collection);
-        } catch (SolrServerException | IOException e) {
-            throw new RuntimeException("Solr deleteByQuery failed", e);
-        }
-    }
-
     private Date toDate(Instant inst) {
         if (inst == null) return new Date();
         return Date.from(inst);
@@ -165,118 +172,342 @@ public class SolrIndexService {
     public String goalDocId(Long id) { return "goal:" + id; }
     public String taskDocId(Long id) { return "task:" + id; }
 
-    public Set<String> fetchExistingIds(Collection<String> ids) {
-        if (ids == null || ids.isEmpty()) return Collections.emptySet();
-        Set<String> out = new HashSet<>();
-        List<String> list = new ArrayList<>(ids);
-        final int BATCH = 500;
-
-        for (int i = 0; i < list.size(); i += BATCH) {
-            List<String> sub = list.subList(i, Math.min(i + BATCH, list.size()));
-            try {
-                SolrDocumentList docs = solr.getById(collection, sub);
-                for (SolrDocument d : docs) {
-                    Object v = d.getFieldValue("id");
-                    if (v != null) out.add(v.toString());
-                }
-            } catch (Exception e) {
-                log.warn("Solr getById failed (skip this batch): {}", e.getMessage());
-            }
-        }
-        return out;
-    }
-
-    private SolrInputDocument toGoalDoc(Goal g) {
+    SolrInputDocument toGoalDoc(Goal g) {
         SolrInputDocument d = new SolrInputDocument();
         d.addField("id", goalDocId(g.getId()));
         d.addField("type", "goal");
+        d.addField("entity_id_l", g.getId());
         d.addField("goal_id_l", g.getId());
         d.addField("goal_name_ja", safe(g.getName()));
         d.addField("updated_at_dt", toDate(g.getUpdatedAt()));
         return d;
     }
-    private SolrInputDocument toTaskDoc(Task t) {
+    SolrInputDocument toTaskDoc(Task t) {
         SolrInputDocument d = new SolrInputDocument();
         d.addField("id", taskDocId(t.getId()));
         d.addField("type", "task");
+        d.addField("entity_id_l", t.getId());
         d.addField("goal_id_l", t.getGoal().getId());
         d.addField("task_name_ja", safe(t.getName()));
+        d.addField("completed_i", t.isCompleted() ? 1 : 0);
         d.addField("updated_at_dt", toDate(t.getUpdatedAt()));
         return d;
     }
+    SolrInputDocument toGoalPartialDoc(Goal g) {
+        SolrInputDocument d = new SolrInputDocument();
+        d.addField("id", goalDocId(g.getId()));
+        d.addField("_version_", 1L);
+        d.addField("updated_at_dt", Map.of("set", toDate(g.getUpdatedAt())));
+        return d;
+    }
+
+    SolrInputDocument toTaskPartialDoc(Task t) {
+        SolrInputDocument d = new SolrInputDocument();
+        d.addField("id", taskDocId(t.getId()));
+        d.addField("_version_", 1L);
+        d.addField("completed_i", Map.of("set", t.isCompleted() ? 1 : 0));
+        d.addField("updated_at_dt", Map.of("set", toDate(t.getUpdatedAt())));
+        return d;
+    }
+
     private static String safe(String s){ return s == null ? "" : s; }
 
-    public void indexGoalsWithTasksBulk(Map<Goal, List<Task>> batch) {
-        if (batch == null || batch.isEmpty()) return; 
-        List<SolrInputDocument> docs = new ArrayList<>();
-        for (var e : batch.entrySet()) {
-            docs.add(toGoalDoc(e.getKey()));
-            for (Task t : e.getValue()) docs.add(toTaskDoc(t));
+    public void indexGoalsBulk(Collection<Goal> goals) {
+        List<IndexOperation> ops = new ArrayList<>(goals.size());
+        for (Goal g : goals) ops.add(IndexOperation.upsert(toGoalDoc(g)));
+        writer.apply(ops);
+    }
+
+    public void indexTasksBulk(Collection<Task> tasks) {
+        List<IndexOperation> ops = new ArrayList<>(tasks.size());
+        for (Task t : tasks) ops.add(IndexOperation.upsert(toTaskDoc(t)));
+        writer.apply(ops);
+    }
+
+    public void indexDocsBulk(List<SolrInputDocument> docs) {
+        if (docs == null || docs.isEmpty()) return;
+        List<IndexOperation> ops = new ArrayList<>(docs.size());
+        for (SolrInputDocument d : docs) ops.add(IndexOperation.upsert(d));
+        writer.apply(ops);
+    }
+
+    public long maxEntityId(String type) {
+        try {
+            SolrQuery q = new SolrQuery("*:*");
+            q.addFilterQuery("type:" + type);
+            q.setFields("entity_id_l");
+            q.setRows(1);
+            q.addSort("entity_id_l", SolrQuery.ORDER.desc);
+            SolrDocumentList docs = solr.query(collection, q).getResults();
+            if (docs.isEmpty()) return 0L;
+            Object v = docs.get(0).getFieldValue("entity_id_l");
+            return v != null ? ((Number) v).longValue() : 0L;
+        } catch (SolrServerException | IOException e) {
+            throw new RuntimeException("Solr search failed", e);
         }
-        addAndCommit(docs);
     }
 
-    public Map<Long, GoalHit> searchGoalTaskHits(String keyword, int rows) {
+    /** Digests of the id buckets [fromBucket, toBucket) of the given doc type, keyed by bucket. */
+    public Map<Long, RangeDigest> digestByIdRange(String type, long fromBucket, long toBucket, long width) {
         try {
-            SolrQuery q = new SolrQuery();
-            q.setRequestHandler("/select");
-            q.set("defType", "edismax");
-            q.setQuery((keyword == null || keyword.isBlank()) ? "*:*" : keyword);
-            q.set("qf", "goal_name_ja^3 task_name_ja");
+            JsonQueryRequest req = new JsonQueryRequest()
+                .setQuery("*:*")
+                .withFilter("type:" + type)
+                .withFilter("entity_id_l:[" + (fromBucket * width) + " TO " + (toBucket * width - 1) + "]")
+                .setLimit(0)
+                .withFacet("ranges", new RangeFacetMap("entity_id_l", fromBucket * width, toBucket * width, width)
+                    .setMinCount(1)
+                    .withStatSubFacet("idSum", "sum(entity_id_l)")
+                    .withStatSubFacet("tsSum", "sum(ms(updated_at_dt))"));
+            QueryResponse rsp = req.process(solr, collection);
+
+            Map<Long, RangeDigest> out = new HashMap<>();
+            var facets = rsp.getJsonFacetingResponse();
+            var ranges = facets != null ? facets.getBucketBasedFacets("ranges") : null;
+            if (ranges == null) return out;
+            for (BucketJsonFacet b : ranges.getBuckets()) {
+                long bucket = ((Number) b.getVal()).longValue() / width;
+                out.put(bucket, new RangeDigest(b.getCount(),
+                    Math.round(((Number) b.getStatValue("idSum")).doubleValue()),
+                    Math.round(((Number) b.getStatValue("tsSum")).doubleValue())));
+            }
+            return out;
+        } catch (SolrServerException | IOException e) {
+            throw new RuntimeException("Solr search failed", e);
+        }
+    }
+
+    /** entity id → updated_at (epoch millis) of the docs of the given type in [fromId, toId]. */
+    public Map<Long, Long> fetchVersionsByIdRange(String type, long fromId, long toId) {
+        try {
+            SolrQuery q = new SolrQuery("*:*");
+            q.addFilterQuery("type:" + type);
+            q.addFilterQuery("entity_id_l:[" + fromId + " TO " + toId + "]");
+            q.setFields("entity_id_l", "updated_at_dt");
+            q.setRows((int) Math.min(Integer.MAX_VALUE, toId - fromId + 1));
+            Map<Long, Long> out = new HashMap<>();
+            for (SolrDocument d : solr.query(collection, q).getResults()) {
+                Object id = d.getFieldValue("entity_id_l");
+                Object ts = d.getFieldValue("updated_at_dt");
+                if (id == null) continue;
+                out.put(((Number) id).longValue(), ts instanceof Date ? ((Date) ts).getTime() : 0L);
+            }
+            return out;
+        } catch (SolrServerException | IOException e) {
+            throw new RuntimeException("Solr search failed", e);
+        }
+    }
+
+    /**
+     * Aggregates task docs with one JSON facet request: the top goals by task
+     * count, and day buckets over updated_at_dt in [from, to) aligned to the
+     * given time zone. Completed counts are sum(completed_i) sub-facets, so
+     * nothing but docValues is read. With a keyword, only tasks whose own name or
+     * whose goal's name matches are counted, as in {@link #searchGoalTaskHits}.
+     */
+    public TaskStats taskStats(String keyword, Instant from, Instant to, String timeZone, int goalLimit) {
+        try {
+            JsonQueryRequest req = new JsonQueryRequest()
+                .withFilter("type:task")
+                .setLimit(0)
+                .withParam("TZ", timeZone)
+                .withStatFacet("completed", "sum(completed_i)")
+                .withFacet("goals", new TermsFacetMap("goal_id_l")
+                    .setLimit(goalLimit)
+                    .setSort("count desc")
+                    .withStatSubFacet("completed", "sum(completed_i)"))
+                .withFacet("days", new RangeFacetMap("updated_at_dt", Date.from(from), Date.from(to), "+1DAY")
+                    .setMinCount(0)
+                    .withStatSubFacet("completed", "sum(completed_i)"));
+            if (keyword == null || keyword.isBlank()) {
+                req.setQuery("*:*");
+            } else {
+                req.setQuery("{!edismax qf=task_name_ja v=$kw} OR {!join from=goal_id_l to=goal_id_l v=$goalQ}")
+                    .withParam("kw", keyword)
+                    .withParam("goalQ", "{!edismax qf=goal_name_ja v=$kw}");
+            }
+            QueryResponse rsp = req.process(solr, collection);
+
+            return toTaskStats(rsp.getResults().getNumFound(), rsp.getJsonFacetingResponse());
+        } catch (SolrServerException | IOException e) {
+            throw new RuntimeException("Solr search failed", e);
+        }
+    }
+
+    /** Reads the facets requested by {@link #taskStats}; facets may be null when nothing matched. */
+    static TaskStats toTaskStats(long total, NestableJsonFacet facets) {
+        TaskStats stats = new TaskStats();
+        stats.total = total;
+        if (facets == null) return stats;
+        stats.completed = sum(facets.getStatValue("completed"));
+        var goalBuckets = facets.getBucketBasedFacets("goals");
+        if (goalBuckets != null) {
+            for (BucketJsonFacet b : goalBuckets.getBuckets()) {
+                GoalCount c = new GoalCount();
+                c.goalId = ((Number) b.getVal()).longValue();
+                c.total = b.getCount();
+                c.completed = sum(b.getStatValue("completed"));
+                stats.goals.add(c);
+            }
+        }
+        var dayBuckets = facets.getBucketBasedFacets("days");
+        if (dayBuckets != null) {
+            for (BucketJsonFacet b : dayBuckets.getBuckets()) {
+                DayCount c = new DayCount();
+                c.start = ((Date) b.getVal()).toInstant();
+                c.total = b.getCount();
+                c.completed = sum(b.getStatValue("completed"));
+                stats.days.add(c);
+            }
+        }
+        return stats;
+    }
+
+    // sum() stats come back as doubles, and are absent for empty buckets
+    private static long sum(Object stat) {
+        return stat instanceof Number ? Math.round(((Number) stat).doubleValue()) : 0L;
+    }
+
+    /**
+     * One page of goals matching the keyword, scrolled with cursorMark. Goals are
+     * collapsed on goal_id_l and ordered by their latest matching doc
+     * (updated_at_dt desc, id asc), so every page costs the same however deep it is.
+     * Pass "*" for the first page; nextCursorMark is null once the end is reached.
+     */
+    public GoalHitPage searchGoalTaskHits(String keyword, String cursorMark, int rows, int tasksPerGoal) {
+        try {
+            SolrQuery q = keywordQuery(keyword);
+            q.addFilterQuery("{!collapse field=goal_id_l sort='updated_at_dt desc,id asc'}");
             q.setRows(rows > 0 ? rows : defaultRows);
             q.addSort("updated_at_dt", SolrQuery.ORDER.desc);
-
-            q.setFields("id", "type", "goal_id_l", "updated_at_dt", "goal_name_ja", "task_name_ja");
-            q.setParam(HighlightParams.HIGHLIGHT, "true");
-            q.setParam(HighlightParams.FIELDS, "goal_name_ja,task_name_ja");
-            q.setParam(HighlightParams.SIMPLE_PRE, HL_PRE);
-            q.setParam(HighlightParams.SIMPLE_POST, HL_POST);
+            q.addSort("id", SolrQuery.ORDER.asc);
+            q.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
+            q.setFields("goal_id_l");
 
             QueryResponse rsp = solr.query(collection, q);
-            var docs = rsp.getResults();
-            Map<String, Map<String, List<String>>> hl = rsp.getHighlighting();
-
-            Map<Long, GoalHit> out = new LinkedHashMap<>();
-            for (var doc : docs) {
-                String id = String.valueOf(doc.getFieldValue("id"));
-                String type = String.valueOf(doc.getFieldValue("type"));
-                Long goalId = (Long) doc.getFieldValue("goal_id_l");
-                Instant updated = ((Date) doc.getFieldValue("updated_at_dt")).toInstant();
-
-                var fields = (hl != null) ? hl.get(id) : null;
-
-                out.computeIfAbsent(goalId, k -> {
-                    GoalHit gh = new GoalHit();
-                    gh.goalId = k;
-                    return gh;
-                });
-                GoalHit gh = out.get(goalId);
-
-                if ("goal".equals(type)) {
-                    String snippet = pickFirst(fields, "goal_name_ja");
-                    if (snippet != null) {
-                        gh.goalNameHtml = toMarkedHtml(snippet);
-                    } else {
-                        Object raw = doc.getFieldValue("goal_name_ja");
-                        gh.goalNameHtml = (raw != null) ? HtmlUtils.htmlEscape(raw.toString()) : "";
-                    }
-                } else if ("task".equals(type)) {
-                    String snippet = pickFirst(fields, "task_name_ja");
-                    TaskHit th = new TaskHit();
-                    th.id = parseDocIdForTask(id);
-                    th.nameHtml = (snippet != null)
-                     ? toMarkedHtml(snippet)
-                     : HtmlUtils.htmlEscape(Objects.toString(doc.getFieldValue("task_name_ja"), ""));
-                    th.updatedAt = updated;
-                    gh.tasks.add(th);
-                }
+            List<Long> goalIds = new ArrayList<>();
+            for (SolrDocument d : rsp.getResults()) goalIds.add((Long) d.getFieldValue("goal_id_l"));
+
+            GoalHitPage page = new GoalHitPage();
+            page.totalGoals = rsp.getResults().getNumFound();
+            String next = rsp.getNextCursorMark();
+            page.nextCursorMark = (next == null || next.equals(cursorMark)) ? null : next;
+            if (goalIds.isEmpty()) return page;
+
+            String idFilter = "goal_id_l:(" + goalIds.stream().map(String::valueOf).collect(Collectors.joining(" OR ")) + ")";
+            Map<Long, GoalHit> byGoal = new HashMap<>();
+            for (GoalHit gh : groupedHits(keyword, idFilter, goalIds.size(), tasksPerGoal)) {
+                byGoal.put(gh.goalId, gh);
             }
-            return out;
+            fillGoalFields(byGoal);
+            for (Long id : goalIds) {
+                GoalHit gh = byGoal.get(id);
+                if (gh != null && gh.updatedAt != null) page.goals.add(gh);
+            }
+            return page;
         } catch (SolrServerException | IOException e) {
             throw new RuntimeException("Solr search failed", e);
         }
     }
 
+    /**
+     * Goals matching the keyword (and filter), grouped on goal_id_l by Solr. Each goal
+     * carries at most tasksPerGoal matching tasks; highlighting only runs on these rows.
+     */
+    private List<GoalHit> groupedHits(String keyword, String filter, int rows, int tasksPerGoal)
+            throws SolrServerException, IOException {
+        SolrQuery q = keywordQuery(keyword);
+        if (filter != null) q.addFilterQuery(filter);
+        q.setRows(rows > 0 ? rows : defaultRows);
+        q.addSort("updated_at_dt", SolrQuery.ORDER.desc);
+
+        q.set(GroupParams.GROUP, true);
+        q.set(GroupParams.GROUP_FIELD, "goal_id_l");
+        // +1 leaves room for the goal document itself next to its tasks
+        q.set(GroupParams.GROUP_LIMIT, tasksPerGoal + 1);
+        q.set(GroupParams.GROUP_SORT, "updated_at_dt desc");
+
+        q.setFields("id", "type", "goal_id_l", "updated_at_dt", "goal_name_ja", "task_name_ja", "completed_i");
+        q.setParam(HighlightParams.HIGHLIGHT, "true");
+        q.setParam(HighlightParams.FIELDS, "goal_name_ja,task_name_ja");
+        q.setParam(HighlightParams.SIMPLE_PRE, HL_PRE);
+        q.setParam(HighlightParams.SIMPLE_POST, HL_POST);
+
+        QueryResponse rsp = solr.query(collection, q);
+        Map<String, Map<String, List<String>>> hl = rsp.getHighlighting();
+
+        List<GoalHit> out = new ArrayList<>();
+        GroupResponse groups = rsp.getGroupResponse();
+        if (groups == null || groups.getValues().isEmpty()) return out;
+        GroupCommand command = groups.getValues().get(0);
+
+        for (Group group : command.getValues()) {
+            if (group.getGroupValue() == null) continue;
+            GoalHit gh = new GoalHit();
+            gh.goalId = Long.valueOf(group.getGroupValue());
+            for (SolrDocument doc : group.getResult()) {
+                collectHit(gh, doc, hl, tasksPerGoal);
+            }
+            out.add(gh);
+        }
+        return out;
+    }
+
+    /** Goals whose own doc did not match the keyword get name and updated_at from a real-time get. */
+    private void fillGoalFields(Map<Long, GoalHit> byGoal) throws SolrServerException, IOException {
+        List<String> missing = byGoal.values().stream()
+            .filter(gh -> gh.updatedAt == null)
+            .map(gh -> goalDocId(gh.goalId))
+            .collect(Collectors.toList());
+        if (missing.isEmpty()) return;
+        for (SolrDocument doc : solr.getById(collection, missing)) {
+            GoalHit gh = byGoal.get((Long) doc.getFieldValue("goal_id_l"));
+            if (gh == null) continue;
+            gh.goalNameHtml = HtmlUtils.htmlEscape(Objects.toString(doc.getFieldValue("goal_name_ja"), ""));
+            gh.updatedAt = ((Date) doc.getFieldValue("updated_at_dt")).toInstant();
+        }
+    }
+
+    private SolrQuery keywordQuery(String keyword) {
+        SolrQuery q = new SolrQuery();
+        q.setRequestHandler("/select");
+        q.set("defType", "edismax");
+        q.setQuery((keyword == null || keyword.isBlank()) ? "*:*" : keyword);
+        q.set("qf", "goal_name_ja^3 task_name_ja");
+        return q;
+    }
+
+    private static void collectHit(GoalHit gh, SolrDocument doc, Map<String, Map<String, List<String>>> hl,
+            int tasksPerGoal) {
+        String id = String.valueOf(doc.getFieldValue("id"));
+        String type = String.valueOf(doc.getFieldValue("type"));
+        Instant updated = ((Date) doc.getFieldValue("updated_at_dt")).toInstant();
+
+        var fields = (hl != null) ? hl.get(id) : null;
+
+        if ("goal".equals(type)) {
+            String snippet = pickFirst(fields, "goal_name_ja");
+            if (snippet != null) {
+                gh.goalNameHtml = toMarkedHtml(snippet);
+            } else {
+                Object raw = doc.getFieldValue("goal_name_ja");
+                gh.goalNameHtml = (raw != null) ? HtmlUtils.htmlEscape(raw.toString()) : "";
+            }
+            gh.updatedAt = updated;
+        } else if ("task".equals(type) && gh.tasks.size() < tasksPerGoal) {
+            String snippet = pickFirst(fields, "task_name_ja");
+            TaskHit th = new TaskHit();
+            th.id = parseDocIdForTask(id);
+            th.nameHtml = (snippet != null)
+             ? toMarkedHtml(snippet)
+             : HtmlUtils.htmlEscape(Objects.toString(doc.getFieldValue("task_name_ja"), ""));
+            Object done = doc.getFieldValue("completed_i");
+            th.completed = done instanceof Number && ((Number) done).intValue() == 1;
+            th.updatedAt = updated;
+            gh.tasks.add(th);
+        }
+    }
+
     private static String pickFirst(Map<String, List<String>> fields, String key) {
         if (fields == null) return null;
         var list = fields.get(key);
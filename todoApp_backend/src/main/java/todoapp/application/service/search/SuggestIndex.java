@@ -0,0 +1,422 @@
+package todoapp.application.service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import todoapp.application.repository.GoalRepository;
+import todoapp.application.repository.NameRow;
+import todoapp.application.repository.TaskRepository;
+
+/**
+ * In-memory prefix index of goal and task names for typeahead.
+ *
+ * Names are keyed by a folded form (NFKC, lower case, katakana as hiragana),
+ * so "ｶｲｷﾞ", "カイギ" and "かいぎ" share completions; kanji prefixes match as
+ * typed. A snapshot holds the distinct keys sorted, with the number of live
+ * documents carrying each, and precomputed top completions for the shortest
+ * prefixes, where ranges are largest. Longer prefixes binary-search their range.
+ *
+ * The snapshot is rebuilt from the database periodically. In between,
+ * {@link #accept} applies the operations written to the live core as an
+ * overlay of per-key count deltas. Ranking across the overlay is approximate
+ * until the next rebuild folds it in.
+ */
+@Component
+public class SuggestIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SuggestIndex.class);
+
+    public static final class Suggestion {
+        public final String text;
+        public final int count;
+
+        public Suggestion(String text, int count) {
+            this.text = text;
+            this.count = count;
+        }
+    }
+
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new String[0], new String[0], new int[0],
+            new long[0], new int[0], new long[0], new long[0], new int[0], Map.of());
+
+        final String[] keys;
+        final String[] texts;
+        final int[] counts;
+        final long[] goalIds;
+        final int[] goalKeys;
+        final long[] taskIds;
+        final long[] taskGoals;
+        final int[] taskKeys;
+        final Map<String, int[]> top;
+
+        Snapshot(String[] keys, String[] texts, int[] counts, long[] goalIds, int[] goalKeys,
+                long[] taskIds, long[] taskGoals, int[] taskKeys, Map<String, int[]> top) {
+            this.keys = keys;
+            this.texts = texts;
+            this.counts = counts;
+            this.goalIds = goalIds;
+            this.goalKeys = goalKeys;
+            this.taskIds = taskIds;
+            this.taskGoals = taskGoals;
+            this.taskKeys = taskKeys;
+            this.top = top;
+        }
+
+        int find(String key) {
+            return Arrays.binarySearch(keys, key);
+        }
+
+        String keyOf(String docId) {
+            long id = entityId(docId);
+            int i;
+            if (docId.startsWith("goal:")) {
+                i = Arrays.binarySearch(goalIds, id);
+                return i >= 0 ? keys[goalKeys[i]] : null;
+            }
+            i = Arrays.binarySearch(taskIds, id);
+            return i >= 0 ? keys[taskKeys[i]] : null;
+        }
+    }
+
+    /** Current key and goal of a document changed since the snapshot; key null once deleted. */
+    private static final class DocState {
+        final String key;
+        final long goalId;
+
+        DocState(String key, long goalId) {
+            this.key = key;
+            this.goalId = goalId;
+        }
+    }
+
+    private static final class Delta {
+        String text;
+        int count;
+    }
+
+    private final GoalRepository goals;
+    private final TaskRepository tasks;
+    private final TransactionTemplate readTx;
+    private final int pageSize;
+    private final int precomputedPrefixLength;
+    private final int maxResults;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    // overlay on the snapshot, guarded by this
+    private final Map<String, DocState> docs = new HashMap<>();
+    private final Map<String, Delta> deltas = new HashMap<>();
+    // operations seen while a rebuild reads the database, replayed onto its result
+    private List<IndexOperation> journal;
+
+    public SuggestIndex(GoalRepository goals, TaskRepository tasks, PlatformTransactionManager txManager,
+        @Value("${app.search.suggest.page-size:10000}") int pageSize,
+        @Value("${app.search.suggest.precomputed-prefix-length:2}") int precomputedPrefixLength,
+        @Value("${app.search.suggest.max-results:20}") int maxResults) {
+        this.goals = goals;
+        this.tasks = tasks;
+        this.readTx = new TransactionTemplate(txManager);
+        this.readTx.setReadOnly(true);
+        this.pageSize = pageSize;
+        this.precomputedPrefixLength = precomputedPrefixLength;
+        this.maxResults = maxResults;
+    }
+
+    /** The folded form names and prefixes are compared in. */
+    public static String fold(String s) {
+        if (s == null) return "";
+        String n = Normalizer.normalize(s, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+        StringBuilder sb = new StringBuilder(n.length());
+        for (int i = 0; i < n.length(); i++) {
+            char c = n.charAt(i);
+            // katakana ァ..ヶ sit 0x60 above their hiragana
+            sb.append(c >= 'ァ' && c <= 'ヶ' ? (char) (c - 0x60) : c);
+        }
+        return sb.toString();
+    }
+
+    /** Up to size names starting with the prefix, most frequent first, then shortest. */
+    public List<Suggestion> suggest(String prefix, int size) {
+        String p = fold(prefix);
+        int k = Math.min(Math.max(size, 1), maxResults);
+        if (p.isEmpty()) return List.of();
+        Snapshot s = snapshot;
+
+        Map<String, Suggestion> candidates = new HashMap<>();
+        int[] top = p.codePointCount(0, p.length()) <= precomputedPrefixLength ? s.top.get(p) : null;
+        if (top != null) {
+            for (int i : top) candidates.put(s.keys[i], new Suggestion(s.texts[i], s.counts[i]));
+        } else if (p.codePointCount(0, p.length()) > precomputedPrefixLength) {
+            int from = lowerBound(s.keys, p);
+            for (int i = from; i < s.keys.length && s.keys[i].startsWith(p); i++) {
+                candidates.put(s.keys[i], new Suggestion(s.texts[i], s.counts[i]));
+            }
+        }
+        synchronized (this) {
+            // the overlay belongs to the snapshot it was built on
+            if (s != snapshot) return suggest(prefix, size);
+            for (Map.Entry<String, Delta> e : deltas.entrySet()) {
+                String key = e.getKey();
+                if (!key.startsWith(p)) continue;
+                int i = s.find(key);
+                int base = i >= 0 ? s.counts[i] : 0;
+                String text = i >= 0 ? s.texts[i] : e.getValue().text;
+                candidates.put(key, new Suggestion(text, base + e.getValue().count));
+            }
+        }
+
+        List<Map.Entry<String, Suggestion>> ranked = new ArrayList<>(candidates.entrySet());
+        ranked.removeIf(e -> e.getValue().count <= 0);
+        ranked.sort(RANK);
+        List<Suggestion> out = new ArrayList<>(Math.min(k, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < k; i++) out.add(ranked.get(i).getValue());
+        return out;
+    }
+
+    private static final Comparator<Map.Entry<String, Suggestion>> RANK =
+        Comparator.<Map.Entry<String, Suggestion>>comparingInt(e -> -e.getValue().count)
+            .thenComparingInt(e -> e.getKey().length())
+            .thenComparing(Map.Entry::getKey);
+
+    /** Applies operations that were just written to the live core. */
+    public synchronized void accept(List<IndexOperation> ops) {
+        if (journal != null) journal.addAll(ops);
+        for (IndexOperation op : ops) apply(op);
+    }
+
+    private void apply(IndexOperation op) {
+        switch (op.getKind()) {
+            case UPSERT:
+                var d = op.getDoc();
+                String type = String.valueOf(d.getFieldValue("type"));
+                Object name = d.getFieldValue("goal".equals(type) ? "goal_name_ja" : "task_name_ja");
+                Object goalId = d.getFieldValue("goal_id_l");
+                set(op.getTarget(), name != null ? name.toString() : null,
+                    goalId instanceof Number ? ((Number) goalId).longValue() : 0L);
+                break;
+            case DELETE_BY_ID:
+                set(op.getTarget(), null, 0L);
+                break;
+            case DELETE_BY_QUERY:
+                // the only delete-by-query issued is the goal delete, "goal_id_l:<id>"
+                String target = op.getTarget();
+                if (target.matches("goal_id_l:\\d+")) deleteGoal(Long.parseLong(target.substring("goal_id_l:".length())));
+                break;
+            case PARTIAL:
+                break;
+        }
+    }
+
+    private void set(String docId, String name, long goalId) {
+        String key = name != null ? fold(name) : "";
+        String newKey = key.isEmpty() ? null : key;
+        DocState prev = docs.get(docId);
+        String oldKey = prev != null ? prev.key : snapshot.keyOf(docId);
+        docs.put(docId, new DocState(newKey, goalId));
+        if (Objects.equals(oldKey, newKey)) return;
+        if (oldKey != null) delta(oldKey, null, -1);
+        if (newKey != null) delta(newKey, name.trim(), 1);
+    }
+
+    private void deleteGoal(long goalId) {
+        set("goal:" + goalId, null, 0L);
+        Set<String> affected = new HashSet<>();
+        for (Map.Entry<String, DocState> e : docs.entrySet()) {
+            if (e.getKey().startsWith("task:") && e.getValue().key != null && e.getValue().goalId == goalId) {
+                affected.add(e.getKey());
+            }
+        }
+        Snapshot s = snapshot;
+        for (int i = 0; i < s.taskIds.length; i++) {
+            if (s.taskGoals[i] != goalId) continue;
+            String docId = "task:" + s.taskIds[i];
+            if (!docs.containsKey(docId)) affected.add(docId);
+        }
+        for (String docId : affected) set(docId, null, 0L);
+    }
+
+    private void delta(String key, String text, int by) {
+        Delta d = deltas.computeIfAbsent(key, k -> new Delta());
+        if (d.text == null) d.text = text;
+        d.count += by;
+    }
+
+    @Scheduled(initialDelayString = "${app.search.suggest.initial-delay-ms:5000}",
+               fixedDelayString = "${app.search.suggest.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        synchronized (this) {
+            journal = new ArrayList<>();
+        }
+        Snapshot built;
+        try {
+            built = build();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                journal = null;
+            }
+            log.warn("Suggest index rebuild failed, keeping the previous one: {}", e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            List<IndexOperation> replay = journal;
+            journal = null;
+            snapshot = built;
+            docs.clear();
+            deltas.clear();
+            for (IndexOperation op : replay) apply(op);
+        }
+        log.info("Suggest index rebuilt: {} names from {} goals and {} tasks",
+            built.keys.length, built.goalIds.length, built.taskIds.length);
+    }
+
+    private Snapshot build() {
+        Map<String, Integer> keyIndex = new HashMap<>();
+        List<String> keyList = new ArrayList<>();
+        List<String> textList = new ArrayList<>();
+        IntList counts = new IntList();
+
+        LongList goalIds = new LongList();
+        IntList goalKeys = new IntList();
+        LongList taskIds = new LongList();
+        LongList taskGoals = new LongList();
+        IntList taskKeys = new IntList();
+
+        for (int pass = 0; pass < 2; pass++) {
+            boolean goalPass = pass == 0;
+            long after = 0;
+            while (true) {
+                long afterId = after;
+                List<NameRow> rows = readTx.execute(s -> goalPass
+                    ? goals.findNamesAfter(afterId, pageSize) : tasks.findNamesAfter(afterId, pageSize));
+                if (rows == null || rows.isEmpty()) break;
+                for (NameRow r : rows) {
+                    after = r.getId();
+                    String key = fold(r.getName());
+                    if (key.isEmpty()) continue;
+                    Integer idx = keyIndex.get(key);
+                    if (idx == null) {
+                        idx = keyList.size();
+                        keyIndex.put(key, idx);
+                        keyList.add(key);
+                        textList.add(r.getName().trim());
+                        counts.add(0);
+                    }
+                    counts.set(idx, counts.get(idx) + 1);
+                    if (goalPass) {
+                        goalIds.add(r.getId());
+                        goalKeys.add(idx);
+                    } else {
+                        taskIds.add(r.getId());
+                        taskGoals.add(r.getGoalId());
+                        taskKeys.add(idx);
+                    }
+                }
+                if (rows.size() < pageSize) break;
+            }
+        }
+
+        // sort keys and remap the document references to sorted positions
+        Integer[] order = new Integer[keyList.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparing(keyList::get));
+        int[] position = new int[order.length];
+        String[] keys = new String[order.length];
+        String[] texts = new String[order.length];
+        int[] sortedCounts = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            position[order[i]] = i;
+            keys[i] = keyList.get(order[i]);
+            texts[i] = textList.get(order[i]);
+            sortedCounts[i] = counts.get(order[i]);
+        }
+        int[] gk = goalKeys.toArray();
+        for (int i = 0; i < gk.length; i++) gk[i] = position[gk[i]];
+        int[] tk = taskKeys.toArray();
+        for (int i = 0; i < tk.length; i++) tk[i] = position[tk[i]];
+
+        return new Snapshot(keys, texts, sortedCounts, goalIds.toArray(), gk,
+            taskIds.toArray(), taskGoals.toArray(), tk, topByPrefix(keys, sortedCounts));
+    }
+
+    // For every prefix of up to precomputedPrefixLength code points, the best maxResults keys.
+    private Map<String, int[]> topByPrefix(String[] keys, int[] counts) {
+        Comparator<Integer> rank = Comparator.<Integer>comparingInt(i -> -counts[i])
+            .thenComparingInt(i -> keys[i].length())
+            .thenComparing(i -> keys[i]);
+        Map<String, int[]> top = new HashMap<>();
+        for (int len = 1; len <= precomputedPrefixLength; len++) {
+            int i = 0;
+            while (i < keys.length) {
+                if (keys[i].codePointCount(0, keys[i].length()) < len) {
+                    i++;
+                    continue;
+                }
+                String prefix = keys[i].substring(0, keys[i].offsetByCodePoints(0, len));
+                List<Integer> group = new ArrayList<>();
+                int j = i;
+                while (j < keys.length && keys[j].startsWith(prefix)) group.add(j++);
+                group.sort(rank);
+                int n = Math.min(maxResults, group.size());
+                int[] best = new int[n];
+                for (int x = 0; x < n; x++) best[x] = group.get(x);
+                top.put(prefix, best);
+                i = j;
+            }
+        }
+        return top;
+    }
+
+    private static int lowerBound(String[] keys, String p) {
+        int i = Arrays.binarySearch(keys, p);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    private static long entityId(String docId) {
+        return Long.parseLong(docId.substring(docId.indexOf(':') + 1));
+    }
+
+    private static final class IntList {
+        int[] a = new int[1024];
+        int size;
+
+        void add(int v) {
+            if (size == a.length) a = Arrays.copyOf(a, size * 2);
+            a[size++] = v;
+        }
+
+        int get(int i) { return a[i]; }
+
+        void set(int i, int v) { a[i] = v; }
+
+        int[] toArray() { return Arrays.copyOf(a, size); }
+    }
+
+    private static final class LongList {
+        long[] a = new long[1024];
+        int size;
+
+        void add(long v) {
+            if (size == a.length) a = Arrays.copyOf(a, size * 2);
+            a[size++] = v;
+        }
+
+        long[] toArray() { return Arrays.copyOf(a, size); }
+    }
+}
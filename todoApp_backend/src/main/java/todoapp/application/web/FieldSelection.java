@@ -0,0 +1,37 @@
+package todoapp.application.web;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/** Parses and checks a ?fields= selector (comma separated) against the selectable fields. */
+public final class FieldSelection {
+
+    private FieldSelection() {}
+
+    public static List<String> parse(String value, Set<String> allowed) {
+        List<String> out = new ArrayList<>();
+        for (String raw : value.split(",")) {
+            String f = raw.trim();
+            if (f.isEmpty() || out.contains(f)) continue;
+            if (!allowed.contains(f)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unknown field: " + f + ", allowed: " + allowed);
+            }
+            out.add(f);
+        }
+        if (out.isEmpty()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "fields must not be empty");
+        return out;
+    }
+
+    public static void checkSort(Sort sort, Set<String> allowed) {
+        for (Sort.Order o : sort) {
+            if (!allowed.contains(o.getProperty())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "cannot sort by: " + o.getProperty());
+            }
+        }
+    }
+}
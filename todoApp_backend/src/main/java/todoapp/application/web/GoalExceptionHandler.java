@@ -10,6 +10,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 @ControllerAdvice
 public class GoalExceptionHandler {
@@ -24,7 +25,10 @@ public class GoalExceptionHandler {
         return build(HttpStatus.CONFLICT, ex.getMessage());
     }
 
-    @ExceptionHandler({ MethodArgumentNotValidException.class, BindException.class })
+    // a malformed parameter such as from=2024-13-01 would otherwise match the
+    // IllegalArgumentException handler through its cause and come back as 404
+    @ExceptionHandler({ MethodArgumentNotValidException.class, BindException.class,
+        MethodArgumentTypeMismatchException.class })
     public ResponseEntity<?> hndleBadRequest(Exception ex) {
         return build(HttpStatus.BAD_REQUEST, "validation failed");
     }
@@ -0,0 +1,45 @@
+package todoapp.application.web;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Position in a list ordered by (updated_at desc, id desc): the last row of the
+ * previous page. Sent to clients base64url-wrapped so they treat it as opaque.
+ */
+public final class KeysetCursor {
+
+    private final Instant updatedAt;
+    private final Long id;
+
+    public KeysetCursor(Instant updatedAt, Long id) {
+        this.updatedAt = updatedAt;
+        this.id = id;
+    }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+
+    public Long getId() { return id; }
+
+    public String encode() {
+        String raw = updatedAt + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Null for a blank token (first page); 400 for a malformed one. */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int comma = raw.indexOf(',');
+            return new KeysetCursor(Instant.parse(raw.substring(0, comma)), Long.valueOf(raw.substring(comma + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor");
+        }
+    }
+}
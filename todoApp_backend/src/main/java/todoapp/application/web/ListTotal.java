@@ -0,0 +1,16 @@
+package todoapp.application.web;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/** How list endpoints report the total: an exact count(*), an estimate, or none (Slice, hasNext only). */
+public enum ListTotal {
+    EXACT, ESTIMATE, NONE;
+
+    public static ListTotal parse(String value) {
+        for (ListTotal t : values()) {
+            if (t.name().equalsIgnoreCase(value)) return t;
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "total must be exact, estimate or none");
+    }
+}
@@ -0,0 +1,42 @@
+package todoapp.application.web.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/** Delta for PATCH /api/goals/{id}: only the listed fields and tasks are touched. */
+@Getter
+@Setter
+public class GoalPatchRequest {
+    @Size(max = 200, message = "{name.max200}")
+    private String name;
+
+    @Size(max = 1000, message = "{desc.max1000}")
+    private String description;
+
+    private List<@Valid TaskRequest> add = new ArrayList<>();
+
+    private List<@Valid TaskChange> update = new ArrayList<>();
+
+    private List<Long> remove = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class TaskChange {
+        @NotNull
+        private Long id;
+
+        @Pattern(regexp = "(?s).*\\S.*", message = "{task.required}")
+        @Size(max = 200, message = "{name.max200}")
+        private String name;
+
+        private Boolean completed;
+    }
+}
@@ -15,6 +15,8 @@ public class GoalResponse {
     private boolean deletionProtected;
     private Instant createdAt;
     private Instant updatedAt;
+    private int totalTasks;
+    private int completedTasks;
 
     public static class TaskSummary {
         public Long id;
@@ -0,0 +1,19 @@
+package todoapp.application.web.dto;
+
+import java.util.List;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class TaskBatchCompleteRequest {
+    @NotEmpty
+    private List<@NotNull Long> ids;
+
+    @NotNull
+    private Boolean completed;
+}
@@ -0,0 +1,16 @@
+package todoapp.application.web.dto;
+
+import java.util.List;
+
+import javax.validation.constraints.NotEmpty;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/** Items are validated one by one, so an invalid item fails only itself. */
+@Getter
+@Setter
+public class TaskBatchCreateRequest {
+    @NotEmpty
+    private List<TaskRequest> tasks;
+}
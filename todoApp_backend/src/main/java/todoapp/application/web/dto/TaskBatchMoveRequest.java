@@ -0,0 +1,19 @@
+package todoapp.application.web.dto;
+
+import java.util.List;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class TaskBatchMoveRequest {
+    @NotEmpty
+    private List<@NotNull Long> ids;
+
+    @NotNull
+    private Long goalId;
+}
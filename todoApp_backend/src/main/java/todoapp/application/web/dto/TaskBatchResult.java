@@ -0,0 +1,26 @@
+package todoapp.application.web.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/** Outcome of one item of a batch request, in request order. */
+@Getter
+@Setter
+public class TaskBatchResult {
+
+    public enum Status { CREATED, UPDATED, UNCHANGED, NOT_FOUND, INVALID }
+
+    private int index;
+    private Long id;
+    private Status status;
+    private String message;
+
+    public static TaskBatchResult of(int index, Long id, Status status, String message) {
+        TaskBatchResult r = new TaskBatchResult();
+        r.setIndex(index);
+        r.setId(id);
+        r.setStatus(status);
+        r.setMessage(message);
+        return r;
+    }
+}
@@ -2,8 +2,11 @@ INSERT INTO goals (id, name, description, deletion_protected)
 VALUES (1, 'ڕWݒ', 'VXep̊ڕW', TRUE)
 ON CONFLICT DO NOTHING;
 
+-- only when the explicit ids above got ahead of the sequence (a fresh database):
+-- moving it back would hand out an id block another instance already holds
 SELECT setval(
   pg_get_serial_sequence('goals','id'),
-  COALESCE((SELECT MAX(id) FROM goals), 0),
+  (SELECT MAX(id) FROM goals),
   true
-);
+)
+WHERE (SELECT MAX(id) FROM goals) >= (SELECT last_value FROM goals_id_seq);
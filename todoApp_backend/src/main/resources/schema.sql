@@ -17,3 +17,68 @@ CREATE TABLE IF NOT EXISTS tasks (
   created_at  TIMESTAMPTZ   NOT NULL DEFAULT CURRENT_TIMESTAMP,
   updated_at  TIMESTAMPTZ   NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
+
+-- search_outbox
+CREATE TABLE IF NOT EXISTS search_outbox (
+  id               BIGSERIAL PRIMARY KEY,
+  entity_type      VARCHAR(16)    NOT NULL,
+  entity_id        BIGINT         NOT NULL,
+  operation        VARCHAR(16)    NOT NULL,
+  attempts         INT            NOT NULL DEFAULT 0,
+  next_attempt_at  TIMESTAMPTZ    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  last_error       VARCHAR(1000),
+  created_at       TIMESTAMPTZ    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  processed_at     TIMESTAMPTZ
+);
+
+CREATE INDEX IF NOT EXISTS idx_search_outbox_pending
+  ON search_outbox (id) WHERE processed_at IS NULL;
+
+ALTER TABLE search_outbox ADD COLUMN IF NOT EXISTS claimed_until TIMESTAMPTZ;
+ALTER TABLE search_outbox ADD COLUMN IF NOT EXISTS parked_at TIMESTAMPTZ;
+CREATE INDEX IF NOT EXISTS idx_search_outbox_parked
+  ON search_outbox (id) WHERE parked_at IS NOT NULL;
+
+-- the relay claims due rows only, passing over rows in backoff
+CREATE INDEX IF NOT EXISTS idx_search_outbox_due
+  ON search_outbox (next_attempt_at, id) WHERE processed_at IS NULL AND parked_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_search_outbox_leased
+  ON search_outbox (claimed_until) WHERE claimed_until IS NOT NULL;
+
+-- search_index_state
+CREATE TABLE IF NOT EXISTS search_index_state (
+  name        VARCHAR(64)   PRIMARY KEY,
+  last_id     BIGINT        NOT NULL DEFAULT 0,
+  updated_at  TIMESTAMPTZ   NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE search_index_state ADD COLUMN IF NOT EXISTS watermark_at TIMESTAMPTZ;
+
+CREATE INDEX IF NOT EXISTS idx_goals_updated_at_id ON goals (updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_tasks_updated_at_id ON tasks (updated_at, id);
+
+-- ids are handed out in blocks of 50 (Hibernate pooled-lo), so inserts can be JDBC-batched
+ALTER SEQUENCE goals_id_seq INCREMENT BY 50;
+ALTER SEQUENCE tasks_id_seq INCREMENT BY 50;
+
+-- soft-deleted goals are hidden at once and purged by GoalPurger
+ALTER TABLE goals ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMPTZ;
+CREATE INDEX IF NOT EXISTS idx_goals_deleted_at ON goals (deleted_at) WHERE deleted_at IS NOT NULL;
+
+-- keyset pages of a goal's tasks (newest first); also serves the goal_id FK cascade
+CREATE INDEX IF NOT EXISTS idx_tasks_goal_id_updated_at_id ON tasks (goal_id, updated_at, id);
+DROP INDEX IF EXISTS idx_tasks_goal_id;
+
+-- per-goal task counters, maintained write-behind; GoalCounterRepairer fills and repairs them
+ALTER TABLE goals ADD COLUMN IF NOT EXISTS total_tasks INT NOT NULL DEFAULT 0;
+ALTER TABLE goals ADD COLUMN IF NOT EXISTS completed_tasks INT NOT NULL DEFAULT 0;
+
+-- task writes' effect on their goal, applied and deleted by GoalActivityAccumulator
+CREATE TABLE IF NOT EXISTS goal_activity (
+  id               BIGSERIAL PRIMARY KEY,
+  goal_id          BIGINT        NOT NULL,
+  at               TIMESTAMPTZ   NOT NULL,
+  total_delta      INT           NOT NULL DEFAULT 0,
+  completed_delta  INT           NOT NULL DEFAULT 0
+);
+CREATE INDEX IF NOT EXISTS idx_goal_activity_goal_id ON goal_activity (goal_id);
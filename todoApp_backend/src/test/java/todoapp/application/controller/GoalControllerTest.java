@@ -0,0 +1,249 @@
+package todoapp.application.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import todoapp.application.config.SecurityConfig;
+import todoapp.application.domain.Goal;
+import todoapp.application.service.GoalActivityAccumulator;
+import todoapp.application.service.GoalService;
+import todoapp.application.service.SingleFlight;
+import todoapp.application.web.KeysetCursor;
+import todoapp.application.web.ListTotal;
+import todoapp.application.web.dto.GoalPatchRequest;
+
+@WebMvcTest(GoalController.class)
+@Import(SecurityConfig.class)
+class GoalControllerTest {
+
+    private static final Instant UPDATED = Instant.parse("2024-05-01T10:15:30.123456Z");
+    private static final String ETAG = "\"7-1714558530123456\"";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    GoalService service;
+
+    @MockBean
+    GoalActivityAccumulator activity;
+
+    @MockBean
+    SingleFlight singleFlight;
+
+    @BeforeEach
+    void setUp() {
+        when(singleFlight.execute(anyString(), any(), any()))
+            .thenAnswer(inv -> inv.getArgument(2, Supplier.class).get());
+    }
+
+    @Test
+    void quickAddReturnsTheUnassignedGoalAsAGetWouldSeeIt() throws Exception {
+        Goal stale = goal(1L, "unassigned");
+        Goal current = goal(1L, "unassigned");
+        current.setTotalTasks(5);
+        current.setCompletedTasks(1);
+        when(service.create(any())).thenReturn(stale);
+        when(service.get(1L)).thenReturn(current);
+        when(activity.pending(1L)).thenReturn(new GoalActivityAccumulator.Activity(UPDATED.plusSeconds(1), 2, 1));
+
+        mvc.perform(post("/api/goals").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"tasks\":[{\"name\":\"a\"},{\"name\":\"b\",\"completed\":true}]}"))
+            .andExpect(status().isCreated())
+            .andExpect(header().string(HttpHeaders.LOCATION, "http://localhost/api/goals/1"))
+            .andExpect(jsonPath("$.totalTasks").value(7))
+            .andExpect(jsonPath("$.completedTasks").value(2))
+            .andExpect(jsonPath("$.updatedAt").value("2024-05-01T10:15:31.123456Z"));
+    }
+
+    @Test
+    void patchAppliesTheDelta() throws Exception {
+        when(service.patch(eq(7L), any())).thenReturn(goal(7L, "renamed"));
+
+        mvc.perform(patch("/api/goals/7").contentType(MediaType.APPLICATION_JSON).content(
+                "{\"name\":\"renamed\",\"add\":[{\"name\":\"new task\"}],"
+                + "\"update\":[{\"id\":11,\"completed\":true}],\"remove\":[12]}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(7))
+            .andExpect(jsonPath("$.name").value("renamed"));
+
+        ArgumentCaptor<GoalPatchRequest> req = ArgumentCaptor.forClass(GoalPatchRequest.class);
+        verify(service).patch(eq(7L), req.capture());
+        assertThat(req.getValue().getName()).isEqualTo("renamed");
+        assertThat(req.getValue().getDescription()).isNull();
+        assertThat(req.getValue().getAdd()).extracting("name").containsExactly("new task");
+        assertThat(req.getValue().getUpdate()).singleElement()
+            .satisfies(c -> assertThat(c.getCompleted()).isTrue());
+        assertThat(req.getValue().getRemove()).containsExactly(12L);
+    }
+
+    @Test
+    void patchWithInvalidTaskChangeIsBadRequest() throws Exception {
+        mvc.perform(patch("/api/goals/7").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"update\":[{\"name\":\"   \"}]}"))
+            .andExpect(status().isBadRequest());
+
+        verify(service, never()).patch(any(), any());
+    }
+
+    @Test
+    void patchOfUnknownGoalIsNotFound() throws Exception {
+        when(service.patch(eq(404L), any())).thenThrow(new IllegalArgumentException("goal not found: 404"));
+
+        mvc.perform(patch("/api/goals/404").contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"x\"}"))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void patchRemovingTheLastTaskIsConflict() throws Exception {
+        when(service.patch(eq(7L), any())).thenThrow(new IllegalStateException("At least one task is required."));
+
+        mvc.perform(patch("/api/goals/7").contentType(MediaType.APPLICATION_JSON).content("{\"remove\":[11]}"))
+            .andExpect(status().isConflict());
+    }
+
+    @Test
+    void detailCarriesVersionETag() throws Exception {
+        when(service.version(7L)).thenReturn(UPDATED);
+        when(service.getWithTasks(7L)).thenReturn(goal(7L, "detail"));
+
+        mvc.perform(get("/api/goals/7/detail"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+            .andExpect(jsonPath("$.name").value("detail"))
+            .andExpect(jsonPath("$.tasks").isArray());
+    }
+
+    @Test
+    void detailWithMatchingIfNoneMatchIsNotModified() throws Exception {
+        when(service.version(7L)).thenReturn(UPDATED);
+
+        mvc.perform(get("/api/goals/7/detail").header(HttpHeaders.IF_NONE_MATCH, ETAG))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+            .andExpect(content().string(""));
+
+        verify(service, never()).getWithTasks(any());
+    }
+
+    @Test
+    void detailWithStaleIfNoneMatchIsReloaded() throws Exception {
+        when(service.version(7L)).thenReturn(UPDATED.plusMillis(1));
+        when(service.getWithTasks(7L)).thenReturn(goal(7L, "detail"));
+
+        mvc.perform(get("/api/goals/7/detail").header(HttpHeaders.IF_NONE_MATCH, ETAG))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"7-1714558530124456\""));
+    }
+
+    @Test
+    void detailOfUnknownGoalIsNotFound() throws Exception {
+        when(service.version(404L)).thenThrow(new IllegalArgumentException("goal not found: 404"));
+
+        mvc.perform(get("/api/goals/404/detail").header(HttpHeaders.IF_NONE_MATCH, ETAG))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void cursorPageCarriesNextCursorWhenMoreRowsExist() throws Exception {
+        Goal a = goal(9L, "a");
+        Goal b = goal(8L, "b");
+        Goal c = goal(7L, "c");
+        when(service.listAfter(null, 3)).thenReturn(List.of(a, b, c));
+
+        mvc.perform(get("/api/goals").param("cursor", "").param("size", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[1].id").value(8))
+            .andExpect(header().string(SearchController.NEXT_CURSOR_HEADER, new KeysetCursor(UPDATED, 8L).encode()));
+    }
+
+    @Test
+    void cursorIsDecodedAndLastPageHasNoNextCursor() throws Exception {
+        when(service.listAfter(any(), eq(3))).thenReturn(List.of(goal(7L, "c")));
+
+        mvc.perform(get("/api/goals").param("cursor", new KeysetCursor(UPDATED, 8L).encode()).param("size", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(header().doesNotExist(SearchController.NEXT_CURSOR_HEADER));
+
+        ArgumentCaptor<KeysetCursor> cursor = ArgumentCaptor.forClass(KeysetCursor.class);
+        verify(service).listAfter(cursor.capture(), eq(3));
+        assertThat(cursor.getValue().getUpdatedAt()).isEqualTo(UPDATED);
+        assertThat(cursor.getValue().getId()).isEqualTo(8L);
+    }
+
+    @Test
+    void malformedCursorIsBadRequest() throws Exception {
+        mvc.perform(get("/api/goals").param("cursor", "bm90IGEgY3Vyc29y"))
+            .andExpect(status().isBadRequest());
+
+        verify(service, never()).listAfter(any(), anyInt());
+    }
+
+    @Test
+    void fieldsSelectOnlyTheNamedColumns() throws Exception {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", 7L);
+        row.put("name", "a");
+        when(service.listFields(eq(List.of("id", "name")), any(), eq(ListTotal.NONE)))
+            .thenReturn(new SliceImpl<>(List.of(row), PageRequest.of(0, 20), false));
+
+        mvc.perform(get("/api/goals").param("fields", "id,name").param("total", "none"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content[0].id").value(7))
+            .andExpect(jsonPath("$.content[0].name").value("a"))
+            .andExpect(jsonPath("$.content[0].description").doesNotExist());
+    }
+
+    @Test
+    void unknownFieldOrSortIsBadRequest() throws Exception {
+        mvc.perform(get("/api/goals").param("fields", "id,secret"))
+            .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/goals").param("fields", "id").param("sort", "tasks"))
+            .andExpect(status().isBadRequest());
+
+        verify(service, never()).listFields(any(), any(), any());
+    }
+
+    private static Goal goal(Long id, String name) {
+        Goal g = new Goal();
+        g.setId(id);
+        g.setName(name);
+        g.setCreatedAt(UPDATED);
+        g.setUpdatedAt(UPDATED);
+        return g;
+    }
+}
@@ -0,0 +1,62 @@
+package todoapp.application.controller;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import todoapp.application.config.SecurityConfig;
+import todoapp.application.service.search.SearchRebuildService;
+
+@WebMvcTest(controllers = SearchAdminController.class,
+    properties = { "app.search.admin.enabled=true", "app.search.admin.token=s3cret" })
+@Import(SecurityConfig.class)
+class SearchAdminControllerTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    SearchRebuildService rebuild;
+
+    @Test
+    void rebuildWithoutTheTokenIsForbidden() throws Exception {
+        mvc.perform(post("/api/admin/search/rebuild"))
+            .andExpect(status().isForbidden());
+        mvc.perform(post("/api/admin/search/rebuild").header(SearchAdminController.TOKEN_HEADER, "guess"))
+            .andExpect(status().isForbidden());
+        mvc.perform(get("/api/admin/search/rebuild"))
+            .andExpect(status().isForbidden());
+
+        verify(rebuild, never()).start();
+    }
+
+    @Test
+    void rebuildWithTheTokenIsAccepted() throws Exception {
+        SearchRebuildService.Status running = new SearchRebuildService.Status();
+        running.state = SearchRebuildService.State.RUNNING;
+        when(rebuild.start()).thenReturn(running);
+
+        mvc.perform(post("/api/admin/search/rebuild").header(SearchAdminController.TOKEN_HEADER, "s3cret"))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.state").value("RUNNING"));
+    }
+
+    @Test
+    void secondRebuildWhileRunningIsConflict() throws Exception {
+        when(rebuild.start()).thenThrow(new IllegalStateException("A search index rebuild is already running."));
+
+        mvc.perform(post("/api/admin/search/rebuild").header(SearchAdminController.TOKEN_HEADER, "s3cret"))
+            .andExpect(status().isConflict());
+    }
+}
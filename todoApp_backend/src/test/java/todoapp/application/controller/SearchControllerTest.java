@@ -0,0 +1,153 @@
+package todoapp.application.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import todoapp.application.config.SecurityConfig;
+import todoapp.application.repository.GoalRepository;
+import todoapp.application.service.SingleFlight;
+import todoapp.application.service.search.SolrIndexService;
+import todoapp.application.service.search.SolrIndexService.GoalHit;
+import todoapp.application.service.search.SolrIndexService.GoalHitPage;
+import todoapp.application.service.search.SolrIndexService.TaskHit;
+import todoapp.application.service.search.SuggestIndex;
+
+@WebMvcTest(SearchController.class)
+@Import(SecurityConfig.class)
+class SearchControllerTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    GoalRepository goals;
+
+    @MockBean
+    SolrIndexService solr;
+
+    @MockBean
+    SearchResultCache cache;
+
+    @MockBean
+    SingleFlight singleFlight;
+
+    @MockBean
+    SuggestIndex suggest;
+
+    @BeforeEach
+    void setUp() {
+        when(singleFlight.execute(anyString(), any(), any()))
+            .thenAnswer(inv -> inv.getArgument(2, Supplier.class).get());
+        when(solr.searchGoalTaskHits(anyString(), anyString(), anyInt(), anyInt())).thenReturn(page());
+    }
+
+    @Test
+    void requestWithoutCursorOrSizeIsUnpagedButBounded() throws Exception {
+        mvc.perform(get("/api/search/goals").param("q", " 買い物 "))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].id").value(1))
+            .andExpect(jsonPath("$[0].tasks.length()").value(7));
+
+        // 5 tasks plus the goal doc per group, 2000 docs at most
+        verify(solr).searchGoalTaskHits(eq("買い物"), eq("*"), eq(333), eq(5));
+    }
+
+    @Test
+    void largeTasksPerGoalFetchesFewerGoals() throws Exception {
+        mvc.perform(get("/api/search/goals").param("q", "買い物").param("tasksPerGoal", "100000"))
+            .andExpect(status().isOk());
+
+        verify(solr).searchGoalTaskHits(eq("買い物"), eq("*"), eq(1), eq(1999));
+    }
+
+    @Test
+    void cursorRequestIsPaged() throws Exception {
+        String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString("AoE=".getBytes(StandardCharsets.UTF_8));
+
+        mvc.perform(get("/api/search/goals").param("q", "買い物").param("cursor", cursor))
+            .andExpect(status().isOk())
+            .andExpect(header().string(SearchController.TOTAL_COUNT_HEADER, "1"))
+            .andExpect(header().exists(SearchController.NEXT_CURSOR_HEADER));
+
+        verify(solr).searchGoalTaskHits(eq("買い物"), eq("AoE="), eq(20), eq(5));
+    }
+
+    @Test
+    void sizeIsCappedAtMaxPageSize() throws Exception {
+        mvc.perform(get("/api/search/goals").param("q", "買い物").param("size", "1000").param("tasksPerGoal", "3"))
+            .andExpect(status().isOk());
+
+        verify(solr).searchGoalTaskHits(eq("買い物"), eq("*"), eq(100), eq(3));
+    }
+
+    @Test
+    void malformedCursorIsBadRequest() throws Exception {
+        mvc.perform(get("/api/search/goals").param("q", "買い物").param("cursor", "%%%"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void suggestReturnsTextAndCount() throws Exception {
+        when(suggest.suggest("かい", 3)).thenReturn(List.of(
+            new SuggestIndex.Suggestion("会議資料", 4), new SuggestIndex.Suggestion("買い物", 1)));
+
+        mvc.perform(get("/api/search/suggest").param("q", "かい").param("size", "3"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0].text").value("会議資料"))
+            .andExpect(jsonPath("$[0].count").value(4))
+            .andExpect(jsonPath("$[1].text").value("買い物"));
+    }
+
+    @Test
+    void suggestDefaultsToTenResults() throws Exception {
+        when(suggest.suggest(null, 10)).thenReturn(List.of());
+
+        mvc.perform(get("/api/search/suggest"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(0));
+
+        verify(suggest).suggest(null, 10);
+    }
+
+    private static GoalHitPage page() {
+        GoalHit gh = new GoalHit();
+        gh.goalId = 1L;
+        gh.goalNameHtml = "<mark class=\"hl\">買い物</mark>";
+        gh.updatedAt = Instant.parse("2024-01-01T00:00:00Z");
+        for (long i = 1; i <= 7; i++) {
+            TaskHit th = new TaskHit();
+            th.id = i;
+            th.nameHtml = "task " + i;
+            th.updatedAt = gh.updatedAt;
+            gh.tasks.add(th);
+        }
+        GoalHitPage page = new GoalHitPage();
+        page.totalGoals = 1;
+        page.nextCursorMark = "AoJ=";
+        page.goals.add(gh);
+        return page;
+    }
+}
@@ -0,0 +1,102 @@
+package todoapp.application.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import todoapp.application.controller.SearchController.ResultDto;
+import todoapp.application.service.search.SearchIndexWriter;
+
+class SearchResultCacheTest {
+
+    private final SearchIndexWriter writer = mock(SearchIndexWriter.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private SearchResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        when(writer.generation()).thenReturn(1L);
+        when(writer.isSettled()).thenReturn(true);
+        cache = new SearchResultCache(writer, registry, 1 << 20, 60_000);
+    }
+
+    @Test
+    void hitWhileGenerationIsUnchanged() {
+        SearchResultCache.Page page = page("a");
+        cache.put("k", page, cache.readGeneration());
+
+        assertThat(cache.get("k")).isSameAs(page);
+        assertThat(registry.counter("search.cache.hits").count()).isEqualTo(1);
+    }
+
+    @Test
+    void indexWriteInvalidatesEntry() {
+        cache.put("k", page("a"), cache.readGeneration());
+        when(writer.generation()).thenReturn(2L);
+
+        assertThat(cache.get("k")).isNull();
+        assertThat(cache.size()).isZero();
+        assertThat(registry.counter("search.cache.evictions", "cause", "stale").count()).isEqualTo(1);
+    }
+
+    @Test
+    void resultReadBeforeAWriteIsNotCached() {
+        long generation = cache.readGeneration();
+        when(writer.generation()).thenReturn(2L);
+
+        cache.put("k", page("a"), generation);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void resultReadWhileWritesAreInvisibleIsNotCached() {
+        when(writer.isSettled()).thenReturn(false);
+
+        long generation = cache.readGeneration();
+        assertThat(generation).isEqualTo(-1);
+        cache.put("k", page("a"), generation);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void expiredEntryIsAMiss() {
+        cache = new SearchResultCache(writer, registry, 1 << 20, 0);
+        cache.put("k", page("a"), cache.readGeneration());
+
+        assertThat(cache.get("k")).isNull();
+    }
+
+    @Test
+    void leastRecentlyUsedIsEvictedOverBudget() {
+        cache = new SearchResultCache(writer, registry, 1_000, 60_000);
+        cache.put("a", page("x".repeat(100)), 1);
+        cache.put("b", page("y".repeat(100)), 1);
+        cache.get("a");
+        cache.put("c", page("z".repeat(100)), 1);
+
+        assertThat(cache.sizeInBytes()).isLessThanOrEqualTo(1_000);
+        assertThat(cache.get("a")).isNotNull();
+        assertThat(cache.get("b")).isNull();
+    }
+
+    @Test
+    void keysOfEquivalentQueriesMatch() {
+        assertThat(SearchResultCache.normalize("  ｶﾞｰﾃﾞﾝ　 計画 "))
+            .isEqualTo(SearchResultCache.normalize("ガーデン 計画"));
+        assertThat(SearchResultCache.key("a", null, 20, 5)).isNotEqualTo(SearchResultCache.key("a", "*", 20, 5));
+        assertThat(SearchResultCache.key("a", "*", 20, 5)).isNotEqualTo(SearchResultCache.key("a", "*", 20, 6));
+    }
+
+    private static SearchResultCache.Page page(String name) {
+        ResultDto r = new ResultDto();
+        r.id = 1L;
+        r.nameHtml = name;
+        return new SearchResultCache.Page(List.of(r), 1, null);
+    }
+}
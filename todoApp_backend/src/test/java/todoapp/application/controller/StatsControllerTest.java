@@ -0,0 +1,102 @@
+package todoapp.application.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import todoapp.application.config.SecurityConfig;
+import todoapp.application.service.SingleFlight;
+import todoapp.application.service.search.SolrIndexService;
+import todoapp.application.service.search.SolrIndexService.DayCount;
+import todoapp.application.service.search.SolrIndexService.GoalCount;
+import todoapp.application.service.search.SolrIndexService.TaskStats;
+
+@WebMvcTest(StatsController.class)
+@Import(SecurityConfig.class)
+class StatsControllerTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    SolrIndexService solr;
+
+    @MockBean
+    SingleFlight singleFlight;
+
+    @BeforeEach
+    void setUp() {
+        when(singleFlight.execute(anyString(), any(), any()))
+            .thenAnswer(inv -> inv.getArgument(2, Supplier.class).get());
+    }
+
+    @Test
+    void rangeIsAlignedToTheTimeZoneAndGoalsAreCapped() throws Exception {
+        when(solr.taskStats(anyString(), any(), any(), anyString(), anyInt())).thenReturn(stats());
+
+        mvc.perform(get("/api/stats").param("q", " 買い物 ").param("from", "2024-05-01").param("to", "2024-05-02")
+                .param("tz", "Asia/Tokyo").param("goals", "500"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.totalTasks").value(12))
+            .andExpect(jsonPath("$.completedTasks").value(5))
+            .andExpect(jsonPath("$.openTasks").value(7))
+            .andExpect(jsonPath("$.goals[0].goalId").value(7))
+            .andExpect(jsonPath("$.goals[0].totalTasks").value(8))
+            .andExpect(jsonPath("$.goals[0].completedTasks").value(4))
+            .andExpect(jsonPath("$.days[0].date").value("2024-05-01"))
+            .andExpect(jsonPath("$.days[0].updatedTasks").value(3))
+            .andExpect(jsonPath("$.days[0].completedTasks").value(2));
+
+        verify(solr).taskStats(eq("買い物"), eq(Instant.parse("2024-04-30T15:00:00Z")),
+            eq(Instant.parse("2024-05-02T15:00:00Z")), eq("Asia/Tokyo"), eq(100));
+    }
+
+    @Test
+    void invalidRangeOrZoneIsBadRequest() throws Exception {
+        mvc.perform(get("/api/stats").param("from", "2024-05-02").param("to", "2024-05-01"))
+            .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/stats").param("from", "2023-01-01").param("to", "2024-05-01"))
+            .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/stats").param("from", "2024-13-01"))
+            .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/stats").param("tz", "Mars/Olympus"))
+            .andExpect(status().isBadRequest());
+
+        verify(solr, never()).taskStats(any(), any(), any(), any(), anyInt());
+    }
+
+    private static TaskStats stats() {
+        TaskStats s = new TaskStats();
+        s.total = 12;
+        s.completed = 5;
+        GoalCount g = new GoalCount();
+        g.goalId = 7L;
+        g.total = 8;
+        g.completed = 4;
+        s.goals.add(g);
+        DayCount d = new DayCount();
+        d.start = Instant.parse("2024-04-30T15:00:00Z");
+        d.total = 3;
+        d.completed = 2;
+        s.days.add(d);
+        return s;
+    }
+}
@@ -0,0 +1,111 @@
+package todoapp.application.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import todoapp.application.config.SecurityConfig;
+import todoapp.application.service.TaskService;
+import todoapp.application.web.dto.TaskBatchResult;
+import todoapp.application.web.dto.TaskBatchResult.Status;
+import todoapp.application.web.dto.TaskRequest;
+
+@WebMvcTest(controllers = TaskController.class, properties = "app.tasks.batch.max-size=3")
+@Import(SecurityConfig.class)
+class TaskControllerTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    TaskService service;
+
+    @Test
+    void batchCreateReportsEachItem() throws Exception {
+        when(service.createBatch(anyList())).thenReturn(List.of(
+            TaskBatchResult.of(0, 101L, Status.CREATED, null),
+            TaskBatchResult.of(1, null, Status.INVALID, "task name is required"),
+            TaskBatchResult.of(2, null, Status.NOT_FOUND, "goal not found: 99")));
+
+        mvc.perform(post("/api/tasks/batch").contentType(MediaType.APPLICATION_JSON).content(
+                "{\"tasks\":[{\"name\":\"a\",\"goalId\":2},{\"name\":\"\"},{\"name\":\"c\",\"goalId\":99}]}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(3))
+            .andExpect(jsonPath("$[0].status").value("CREATED"))
+            .andExpect(jsonPath("$[0].id").value(101))
+            .andExpect(jsonPath("$[1].status").value("INVALID"))
+            .andExpect(jsonPath("$[2].status").value("NOT_FOUND"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TaskRequest>> items = ArgumentCaptor.forClass(List.class);
+        verify(service).createBatch(items.capture());
+        // items are validated one by one by the service, so the blank name reaches it
+        assertThat(items.getValue()).extracting("name").containsExactly("a", "", "c");
+    }
+
+    @Test
+    void batchLargerThanTheLimitIsBadRequest() throws Exception {
+        mvc.perform(post("/api/tasks/batch/completed").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[1,2,3,4],\"completed\":true}"))
+            .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void batchCompleteUpdatesTheListedIds() throws Exception {
+        when(service.setCompletedBatch(List.of(1L, 2L), true)).thenReturn(List.of(
+            TaskBatchResult.of(0, 1L, Status.UPDATED, null),
+            TaskBatchResult.of(1, 2L, Status.UNCHANGED, null)));
+
+        mvc.perform(post("/api/tasks/batch/completed").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[1,2],\"completed\":true}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].status").value("UPDATED"))
+            .andExpect(jsonPath("$[1].status").value("UNCHANGED"));
+    }
+
+    @Test
+    void batchCompleteWithoutFlagIsBadRequest() throws Exception {
+        mvc.perform(post("/api/tasks/batch/completed").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[1,2]}"))
+            .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void batchMoveToUnknownGoalIsNotFound() throws Exception {
+        when(service.moveBatch(anyList(), eq(99L))).thenThrow(new IllegalArgumentException("goal not found: 99"));
+
+        mvc.perform(post("/api/tasks/batch/move").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[1,2],\"goalId\":99}"))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void batchMoveWithoutIdsIsBadRequest() throws Exception {
+        mvc.perform(post("/api/tasks/batch/move").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[],\"goalId\":2}"))
+            .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(service);
+    }
+}
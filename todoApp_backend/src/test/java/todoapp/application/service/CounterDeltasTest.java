@@ -0,0 +1,48 @@
+package todoapp.application.service;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+class CounterDeltasTest {
+
+    private final GoalActivityAccumulator activity = mock(GoalActivityAccumulator.class);
+
+    @Test
+    void sumsPerGoalAndRecordsEachGoalOnce() {
+        CounterDeltas deltas = new CounterDeltas();
+        deltas.add(2L, 1, 1);
+        deltas.add(3L, -1, 0);
+        deltas.add(2L, 1, 0);
+        deltas.add(2L, -1, -1);
+
+        deltas.recordTo(activity);
+
+        InOrder order = inOrder(activity);
+        order.verify(activity).record(2L, 1, 0);
+        order.verify(activity).record(3L, -1, 0);
+        verifyNoMoreInteractions(activity);
+    }
+
+    @Test
+    void goalWhoseDeltasCancelOutIsStillRecorded() {
+        CounterDeltas deltas = new CounterDeltas();
+        deltas.add(5L, -1, -1);
+        deltas.add(5L, 1, 1);
+
+        deltas.recordTo(activity);
+
+        inOrder(activity).verify(activity).record(5L, 0, 0);
+        verifyNoMoreInteractions(activity);
+    }
+
+    @Test
+    void nothingRecordedWhenEmpty() {
+        new CounterDeltas().recordTo(activity);
+
+        verifyNoMoreInteractions(activity);
+    }
+}
@@ -0,0 +1,98 @@
+package todoapp.application.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import todoapp.application.domain.Goal;
+import todoapp.application.repository.GoalActivityRepository;
+import todoapp.application.repository.GoalRepository;
+
+@SpringBootTest(properties = {
+    "app.search.reindex-on-startup=false",
+    "app.goal-activity.flush-interval-ms=3600000",
+    "app.goal-activity.flush-batch-size=2"
+})
+class GoalActivityAccumulatorTest {
+
+    @Autowired
+    GoalActivityAccumulator activity;
+
+    @Autowired
+    GoalRepository goals;
+
+    @Autowired
+    GoalActivityRepository activities;
+
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    private TransactionTemplate tx;
+    private Goal goal;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(txManager);
+        Goal g = new Goal();
+        g.setName("activity test");
+        goal = goals.save(g);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        if (goals.existsById(goal.getId())) goals.deleteById(goal.getId());
+    }
+
+    @Test
+    void committedActivityIsOverlaidThenDrainedIntoTheGoal() {
+        Instant stored = goals.findUpdatedAtById(goal.getId()).orElseThrow();
+        tx.executeWithoutResult(s -> activity.record(goal.getId(), 3, 1));
+        tx.executeWithoutResult(s -> activity.record(goal.getId(), -1, 1));
+        tx.executeWithoutResult(s -> activity.record(goal.getId(), 1, -1));
+
+        GoalActivityAccumulator.Activity pending = activity.pending(goal.getId());
+        assertThat(pending.getTotalDelta()).isEqualTo(3);
+        assertThat(pending.getCompletedDelta()).isEqualTo(1);
+        Instant effective = activity.effectiveUpdatedAt(goal.getId(), stored);
+        assertThat(effective).isAfter(stored);
+
+        // batch size 2: the flush keeps draining until a batch comes back short
+        activity.flush();
+
+        Goal flushed = goals.findById(goal.getId()).orElseThrow();
+        assertThat(flushed.getTotalTasks()).isEqualTo(3);
+        assertThat(flushed.getCompletedTasks()).isEqualTo(1);
+        assertThat(flushed.getUpdatedAt()).isEqualTo(effective.truncatedTo(ChronoUnit.MICROS));
+        assertThat(activity.pending(goal.getId())).isNull();
+    }
+
+    @Test
+    void rolledBackActivityIsNotRecorded() {
+        tx.executeWithoutResult(s -> {
+            activity.record(goal.getId(), 1, 1);
+            s.setRollbackOnly();
+        });
+
+        assertThat(activity.pending(goal.getId())).isNull();
+    }
+
+    @Test
+    void activityOfDeletedGoalIsDroppedOnDrain() {
+        tx.executeWithoutResult(s -> activity.record(goal.getId(), 1, 0));
+        goals.deleteById(goal.getId());
+
+        activity.flush();
+
+        assertThat(activities.sumByGoalIdIn(List.of(goal.getId()))).isEmpty();
+    }
+}
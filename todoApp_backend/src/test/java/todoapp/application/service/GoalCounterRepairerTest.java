@@ -0,0 +1,107 @@
+package todoapp.application.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import todoapp.application.domain.Goal;
+import todoapp.application.domain.Task;
+import todoapp.application.repository.GoalActivityRepository;
+import todoapp.application.repository.GoalRepository;
+import todoapp.application.repository.TaskRepository;
+
+@SpringBootTest(properties = {
+    "app.search.reindex-on-startup=false",
+    "app.goal-activity.flush-interval-ms=3600000",
+    "app.goals.counters.repair.initial-delay-ms=3600000"
+})
+class GoalCounterRepairerTest {
+
+    @Autowired
+    GoalCounterRepairer repairer;
+
+    @Autowired
+    GoalActivityAccumulator activity;
+
+    @Autowired
+    GoalRepository goals;
+
+    @Autowired
+    TaskRepository tasks;
+
+    @Autowired
+    GoalActivityRepository activities;
+
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    @Autowired
+    DataSource dataSource;
+
+    private Goal drifted;
+    private Goal pending;
+    private Connection drainLock;
+
+    @BeforeEach
+    void holdDrainLock() throws SQLException {
+        // keeps the flushers of other cached test contexts from draining the pending row
+        drainLock = dataSource.getConnection();
+        try (Statement st = drainLock.createStatement()) {
+            st.execute("select pg_advisory_lock(" + GoalActivityAccumulator.DRAIN_LOCK + ")");
+        }
+    }
+
+    @AfterEach
+    void cleanUp() throws SQLException {
+        activities.deleteAllInBatch(activities.findAll().stream()
+            .filter(a -> a.getGoalId().equals(pending.getId())).toList());
+        goals.deleteAllById(List.of(drifted.getId(), pending.getId()));
+        try (Connection c = drainLock; Statement st = c.createStatement()) {
+            st.execute("select pg_advisory_unlock(" + GoalActivityAccumulator.DRAIN_LOCK + ")");
+        }
+    }
+
+    @Test
+    void repairsDriftedCountersButSkipsGoalsWithUndrainedActivity() {
+        // tasks saved straight through the repository bypass the accumulator, so the counters stay 0
+        drifted = goalWithTasks("drifted", true, false, false);
+        pending = goalWithTasks("pending", true, true);
+        new TransactionTemplate(txManager).executeWithoutResult(s -> activity.record(pending.getId(), 2, 2));
+
+        repairer.repair();
+
+        Goal repaired = goals.findById(drifted.getId()).orElseThrow();
+        assertThat(repaired.getTotalTasks()).isEqualTo(3);
+        assertThat(repaired.getCompletedTasks()).isEqualTo(1);
+        Goal skipped = goals.findById(pending.getId()).orElseThrow();
+        assertThat(skipped.getTotalTasks()).isZero();
+        assertThat(skipped.getCompletedTasks()).isZero();
+    }
+
+    private Goal goalWithTasks(String name, boolean... completed) {
+        Goal g = new Goal();
+        g.setName(name);
+        Goal saved = goals.save(g);
+        for (boolean c : completed) {
+            Task t = new Task();
+            t.setGoal(saved);
+            t.setName(name + " task");
+            t.setCompleted(c);
+            tasks.save(t);
+        }
+        return saved;
+    }
+}
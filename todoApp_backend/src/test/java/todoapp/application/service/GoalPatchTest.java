@@ -0,0 +1,103 @@
+package todoapp.application.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.transaction.annotation.Transactional;
+
+import todoapp.application.domain.Goal;
+import todoapp.application.domain.Task;
+import todoapp.application.repository.GoalRepository;
+import todoapp.application.repository.TaskRepository;
+import todoapp.application.service.search.SolrIndexService;
+import todoapp.application.web.dto.GoalPatchRequest;
+import todoapp.application.web.dto.GoalPatchRequest.TaskChange;
+
+/** A patch touching many tasks must take a fixed number of statements, not one per task. */
+@SpringBootTest(properties = {
+    "app.search.reindex-on-startup=false",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Transactional
+class GoalPatchTest {
+
+    private static final int TASKS = 200;
+
+    @MockBean
+    SolrIndexService solr;
+
+    @Autowired
+    GoalService service;
+
+    @Autowired
+    GoalRepository goals;
+
+    @Autowired
+    TaskRepository tasks;
+
+    @Autowired
+    EntityManager em;
+
+    @Test
+    void renamesAndTogglesAreSetBased() {
+        Goal g = new Goal();
+        g.setName("patch test");
+        g = goals.save(g);
+        List<Task> created = new ArrayList<>();
+        for (int i = 0; i < TASKS; i++) {
+            Task t = new Task();
+            t.setGoal(g);
+            t.setName("task " + i);
+            t.setCompleted(i % 2 == 1);
+            created.add(t);
+        }
+        tasks.saveAll(created);
+        em.flush();
+        em.clear();
+
+        GoalPatchRequest req = new GoalPatchRequest();
+        for (int i = 0; i < TASKS; i++) {
+            Task t = created.get(i);
+            // odd tasks keep their name, every task is marked completed
+            req.getUpdate().add(change(t.getId(), i % 2 == 0 ? "renamed \"" + i + "\", ok" : t.getName(), true));
+        }
+        Long first = created.get(0).getId();
+        req.getUpdate().add(change(first, null, false));
+
+        Statistics stats = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        service.patch(g.getId(), req);
+        em.flush();
+        long statements = stats.getPrepareStatementCount();
+        em.clear();
+
+        assertThat(statements).isLessThan(10);
+        List<Task> after = tasks.findByGoalIdOrderByIdAsc(g.getId());
+        assertThat(after.get(0).getName()).isEqualTo("renamed \"0\", ok");
+        assertThat(after.get(0).isCompleted()).isFalse();
+        assertThat(after.get(1).getName()).isEqualTo("task 1");
+        assertThat(after.stream().filter(Task::isCompleted).count()).isEqualTo(TASKS - 1);
+        verify(solr).indexTask(first);
+        verify(solr, never()).refreshTask(created.get(1).getId());
+    }
+
+    private static TaskChange change(Long id, String name, Boolean completed) {
+        TaskChange c = new TaskChange();
+        c.setId(id);
+        c.setName(name);
+        c.setCompleted(completed);
+        return c;
+    }
+}
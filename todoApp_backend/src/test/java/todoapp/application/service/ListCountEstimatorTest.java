@@ -0,0 +1,66 @@
+package todoapp.application.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import todoapp.application.repository.GoalRepository;
+import todoapp.application.repository.TaskRepository;
+
+class ListCountEstimatorTest {
+
+    private final GoalRepository goals = mock(GoalRepository.class);
+    private final TaskRepository tasks = mock(TaskRepository.class);
+
+    @Test
+    void estimateIsUsedAsTotal() {
+        Page<String> page = ListCountEstimator.withEstimate(
+            new SliceImpl<>(List.of("a", "b"), PageRequest.of(0, 2), true), 1000);
+
+        assertThat(page.getTotalElements()).isEqualTo(1000);
+        assertThat(page.getContent()).containsExactly("a", "b");
+    }
+
+    @Test
+    void estimateBelowWhatTheSliceProvesIsRaised() {
+        Page<String> withNext = ListCountEstimator.withEstimate(
+            new SliceImpl<>(List.of("a", "b"), PageRequest.of(3, 2), true), 5);
+        Page<String> last = ListCountEstimator.withEstimate(
+            new SliceImpl<>(List.of("a"), PageRequest.of(3, 2), false), 5);
+
+        assertThat(withNext.getTotalElements()).isEqualTo(9);
+        assertThat(withNext.hasNext()).isTrue();
+        assertThat(last.getTotalElements()).isEqualTo(7);
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    void goalsFallBackToCountUntilAnalyzed() {
+        ListCountEstimator estimator = new ListCountEstimator(goals, tasks, 30_000);
+        when(goals.estimateRowCount()).thenReturn(-1L);
+        when(goals.count()).thenReturn(42L);
+        assertThat(estimator.goals()).isEqualTo(42);
+
+        when(goals.estimateRowCount()).thenReturn(50_000L);
+        assertThat(estimator.goals()).isEqualTo(50_000);
+    }
+
+    @Test
+    void taskCountsAreCachedPerGoal() {
+        ListCountEstimator estimator = new ListCountEstimator(goals, tasks, 30_000);
+        when(tasks.countByGoalId(7L)).thenReturn(3L);
+
+        assertThat(estimator.tasksOfGoal(7L)).isEqualTo(3);
+        assertThat(estimator.tasksOfGoal(7L)).isEqualTo(3);
+        verify(tasks, times(1)).countByGoalId(7L);
+    }
+}
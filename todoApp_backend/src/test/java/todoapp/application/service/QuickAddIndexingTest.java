@@ -0,0 +1,84 @@
+package todoapp.application.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+
+import todoapp.application.domain.Goal;
+import todoapp.application.domain.SearchOutbox;
+import todoapp.application.domain.SearchOutbox.EntityType;
+import todoapp.application.domain.SearchOutbox.Operation;
+import todoapp.application.domain.Task;
+import todoapp.application.repository.GoalRepository;
+import todoapp.application.repository.SearchOutboxRepository;
+import todoapp.application.repository.TaskRepository;
+import todoapp.application.web.dto.GoalRequest;
+import todoapp.application.web.dto.TaskRequest;
+
+/** Quick-add must not re-index the whole unassigned goal, however many tasks it already holds. */
+@SpringBootTest(properties = "app.search.reindex-on-startup=false")
+@Transactional
+class QuickAddIndexingTest {
+
+    private static final int EXISTING_TASKS = 1000;
+
+    @Autowired
+    GoalService service;
+
+    @Autowired
+    GoalRepository goals;
+
+    @Autowired
+    TaskRepository tasks;
+
+    @Autowired
+    SearchOutboxRepository outbox;
+
+    @Autowired
+    EntityManager em;
+
+    @Test
+    void quickAddQueuesOnlyTheNewTasks() {
+        Goal unassigned = goals.findById(1L).orElseThrow();
+        List<Task> existing = new ArrayList<>();
+        for (int i = 0; i < EXISTING_TASKS; i++) {
+            Task t = new Task();
+            t.setGoal(unassigned);
+            t.setName("existing " + i);
+            existing.add(t);
+        }
+        tasks.saveAll(existing);
+        em.flush();
+        long before = outbox.findMaxId();
+
+        GoalRequest req = new GoalRequest();
+        req.setTasks(List.of(task("牛乳を買う"), task("卵を買う")));
+        service.create(req);
+        em.flush();
+
+        List<SearchOutbox> queued = outbox.findByIdGreaterThanOrderByIdAsc(before, Pageable.unpaged());
+        List<Long> created = tasks.findByGoalIdOrderByIdAsc(1L).stream()
+            .filter(t -> t.getName().endsWith("を買う"))
+            .map(Task::getId)
+            .collect(Collectors.toList());
+        assertThat(queued).hasSize(2)
+            .allMatch(e -> e.getEntityType() == EntityType.TASK && e.getOperation() == Operation.UPSERT);
+        assertThat(queued.stream().map(SearchOutbox::getEntityId)).containsExactlyInAnyOrderElementsOf(created);
+    }
+
+    private static TaskRequest task(String name) {
+        TaskRequest t = new TaskRequest();
+        t.setName(name);
+        return t;
+    }
+}
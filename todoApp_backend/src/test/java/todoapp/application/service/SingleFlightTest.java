@@ -0,0 +1,100 @@
+package todoapp.application.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void concurrentCallerSharesTheLeadersResult() throws Exception {
+        SingleFlight flight = new SingleFlight(registry, 5_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flight.execute("goal", 1L, () -> {
+            loads.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "loaded";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> waiter = CompletableFuture.supplyAsync(() -> flight.execute("goal", 1L, () -> {
+            loads.incrementAndGet();
+            return "own";
+        }));
+        // give the second caller time to join the running flight
+        Thread.sleep(200);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("loaded");
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo("loaded");
+        assertThat(loads).hasValue(1);
+        assertThat(count("leader")).isEqualTo(1);
+        assertThat(count("shared")).isEqualTo(1);
+    }
+
+    @Test
+    void differentKeysDoNotShare() {
+        SingleFlight flight = new SingleFlight(registry, 5_000);
+        assertThat(flight.execute("goal", 1L, () -> "a")).isEqualTo("a");
+        assertThat(flight.execute("goal", 2L, () -> "b")).isEqualTo("b");
+        assertThat(flight.execute("search", 1L, () -> "c")).isEqualTo("c");
+        assertThat(count("leader")).isEqualTo(3);
+    }
+
+    @Test
+    void waiterLoadsItselfAfterTimeout() throws Exception {
+        SingleFlight flight = new SingleFlight(registry, 50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flight.execute("goal", 1L, () -> {
+            started.countDown();
+            await(release);
+            return "slow";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(flight.execute("goal", 1L, () -> "own")).isEqualTo("own");
+        assertThat(count("timeout")).isEqualTo(1);
+
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+    }
+
+    @Test
+    void leaderFailureIsRethrownAndNotRemembered() {
+        SingleFlight flight = new SingleFlight(registry, 5_000);
+        assertThatThrownBy(() -> flight.execute("goal", 1L, () -> {
+            throw new IllegalArgumentException("goal not found: 1");
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(flight.execute("goal", 1L, () -> "retried")).isEqualTo("retried");
+    }
+
+    private double count(String outcome) {
+        return registry.find("singleflight.calls").tag("outcome", outcome).counters().stream()
+            .mapToDouble(Counter::count).sum();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package todoapp.application.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import todoapp.application.domain.Goal;
+import todoapp.application.domain.Task;
+import todoapp.application.repository.GoalRepository;
+import todoapp.application.repository.ListProjections;
+import todoapp.application.repository.TaskRepository;
+import todoapp.application.web.dto.TaskBatchResult;
+import todoapp.application.web.dto.TaskBatchResult.Status;
+import todoapp.application.web.dto.TaskRequest;
+
+/** Tasks of a soft-deleted goal must not show up in any read or write while they wait for the purge. */
+@SpringBootTest(properties = {
+    "app.search.reindex-on-startup=false",
+    "app.goals.delete.soft-threshold=2"
+})
+@Transactional
+class SoftDeletedGoalTest {
+
+    @Autowired
+    GoalService service;
+
+    @Autowired
+    TaskService taskService;
+
+    @Autowired
+    GoalRepository goals;
+
+    @Autowired
+    TaskRepository tasks;
+
+    @Autowired
+    ListProjections projections;
+
+    @Autowired
+    EntityManager em;
+
+    @Test
+    void tasksOfSoftDeletedGoalAreHidden() {
+        Goal g = goalWithTasks(3);
+        service.delete(g.getId());
+        em.flush();
+        em.clear();
+
+        assertThat(goals.existsById(g.getId())).isFalse();
+        assertThat(tasks.countByGoalIdUpTo(g.getId(), 10)).isEqualTo(3);
+        assertThat(tasks.findByGoalId(g.getId(), PageRequest.of(0, 10))).isEmpty();
+        assertThat(tasks.findSliceByGoalId(g.getId(), PageRequest.of(0, 10))).isEmpty();
+        assertThat(tasks.findByGoalIdOrderByIdAsc(g.getId())).isEmpty();
+        assertThat(tasks.countByGoalId(g.getId())).isZero();
+        assertThat(tasks.findRecentByGoalId(g.getId(), 10)).isEmpty();
+        assertThat(tasks.findRecentByGoalIdBefore(g.getId(), Instant.now().plusSeconds(60), Long.MAX_VALUE, 10)).isEmpty();
+        assertThat(projections.tasksOfGoal(g.getId(), List.of("id"), PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    void singleAndBatchTaskWritesDoNotReachTasksOfSoftDeletedGoal() {
+        Goal g = goalWithTasks(3);
+        Goal live = goalWithTasks(0);
+        Long taskId = tasks.findByGoalIdOrderByIdAsc(g.getId()).get(0).getId();
+        service.delete(g.getId());
+        em.flush();
+        em.clear();
+
+        TaskRequest move = new TaskRequest();
+        move.setName("moved");
+        move.setGoalId(live.getId());
+        assertThatThrownBy(() -> taskService.get(taskId)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> taskService.update(taskId, move)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> taskService.setCompleted(taskId, true)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> taskService.delete(taskId)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(taskService.moveBatch(List.of(taskId), live.getId()))
+            .extracting(TaskBatchResult::getStatus).containsExactly(Status.NOT_FOUND);
+        assertThat(taskService.setCompletedBatch(List.of(taskId), true))
+            .extracting(TaskBatchResult::getStatus).containsExactly(Status.NOT_FOUND);
+
+        em.flush();
+        em.clear();
+        assertThat(tasks.countByGoalId(live.getId())).isZero();
+        assertThat(tasks.countByGoalIdUpTo(g.getId(), 10)).isEqualTo(3);
+    }
+
+    @Test
+    void goalAtThresholdIsDeletedDirectly() {
+        Goal g = goalWithTasks(2);
+        service.delete(g.getId());
+        em.flush();
+        em.clear();
+
+        assertThat(tasks.countByGoalIdUpTo(g.getId(), 10)).isZero();
+    }
+
+    @Test
+    void countUpToStopsAtLimit() {
+        Goal g = goalWithTasks(5);
+        em.flush();
+
+        assertThat(tasks.countByGoalIdUpTo(g.getId(), 3)).isEqualTo(3);
+        assertThat(tasks.countByGoalIdUpTo(g.getId(), 10)).isEqualTo(5);
+    }
+
+    private Goal goalWithTasks(int n) {
+        Goal g = new Goal();
+        g.setName("soft delete test");
+        Goal saved = goals.save(g);
+        for (int i = 0; i < n; i++) {
+            Task t = new Task();
+            t.setGoal(saved);
+            t.setName("task " + i);
+            tasks.save(t);
+        }
+        em.flush();
+        return saved;
+    }
+}
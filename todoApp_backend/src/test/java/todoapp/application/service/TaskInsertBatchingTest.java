@@ -0,0 +1,61 @@
+package todoapp.application.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import todoapp.application.domain.Goal;
+import todoapp.application.domain.Task;
+import todoapp.application.repository.GoalRepository;
+import todoapp.application.repository.TaskRepository;
+
+/** 500 task inserts must go out as JDBC batches, not one statement round trip each. */
+@SpringBootTest(properties = {
+    "app.search.reindex-on-startup=false",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Transactional
+class TaskInsertBatchingTest {
+
+    private static final int TASKS = 500;
+
+    @Autowired
+    GoalRepository goals;
+
+    @Autowired
+    TaskRepository tasks;
+
+    @Autowired
+    EntityManager em;
+
+    @Test
+    void insertsAreBatched() {
+        Goal goal = goals.findById(1L).orElseThrow();
+        Statistics stats = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        List<Task> batch = new ArrayList<>(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            Task t = new Task();
+            t.setGoal(goal);
+            t.setName("batched " + i);
+            batch.add(t);
+        }
+        tasks.saveAll(batch);
+        em.flush();
+
+        assertThat(stats.getEntityInsertCount()).isEqualTo(TASKS);
+        // one nextval per block of 50 ids plus the insert statement(s); unbatched this would be over 500
+        assertThat(stats.getPrepareStatementCount()).isLessThanOrEqualTo(2L * TASKS / 50);
+    }
+}
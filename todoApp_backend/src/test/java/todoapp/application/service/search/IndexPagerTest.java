@@ -0,0 +1,83 @@
+package todoapp.application.service.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import todoapp.application.domain.Goal;
+import todoapp.application.domain.SearchOutbox.EntityType;
+import todoapp.application.domain.Task;
+import todoapp.application.repository.GoalRepository;
+import todoapp.application.repository.TaskRepository;
+
+class IndexPagerTest {
+
+    private final GoalRepository goals = mock(GoalRepository.class);
+    private final TaskRepository tasks = mock(TaskRepository.class);
+    private final TransactionTemplate readTx = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Test
+    void tasksOfOneHugeGoalArePagedByTaskId() {
+        Goal huge = goal(1);
+        List<Goal> goalRows = List.of(huge, goal(2));
+        List<Task> taskRows = LongStream.rangeClosed(1, 25).mapToObj(id -> task(id, huge)).toList();
+        stub(goalRows, taskRows);
+
+        IndexPager pager = new IndexPager(goals, tasks, mock(SolrIndexService.class), readTx, 10, 0, 0);
+        List<String> pages = new ArrayList<>();
+        IndexPager.Page p;
+        while ((p = pager.next()) != null) pages.add(p.type + ":" + p.lastId + "/" + p.docs.size());
+
+        assertThat(pages).containsExactly("GOAL:2/2", "TASK:10/10", "TASK:20/10", "TASK:25/5");
+    }
+
+    @Test
+    void resumesAfterTheCheckpointedIds() {
+        Goal g = goal(1);
+        stub(List.of(g, goal(2)), LongStream.rangeClosed(1, 25).mapToObj(id -> task(id, g)).toList());
+
+        IndexPager pager = new IndexPager(goals, tasks, mock(SolrIndexService.class), readTx, 10, 2, 20);
+
+        IndexPager.Page p = pager.next();
+        assertThat(p.type).isEqualTo(EntityType.TASK);
+        assertThat(p.lastId).isEqualTo(25);
+        assertThat(pager.next()).isNull();
+    }
+
+    private void stub(List<Goal> goalRows, List<Task> taskRows) {
+        when(goals.findPageAfterId(anyLong(), any(Pageable.class))).thenAnswer(inv -> {
+            long after = inv.getArgument(0);
+            int size = inv.getArgument(1, Pageable.class).getPageSize();
+            return goalRows.stream().filter(g -> g.getId() > after).limit(size).toList();
+        });
+        when(tasks.findLivePageAfterId(anyLong(), any(Pageable.class))).thenAnswer(inv -> {
+            long after = inv.getArgument(0);
+            int size = inv.getArgument(1, Pageable.class).getPageSize();
+            return taskRows.stream().filter(t -> t.getId() > after).limit(size).toList();
+        });
+    }
+
+    private static Goal goal(long id) {
+        Goal g = new Goal();
+        g.setId(id);
+        return g;
+    }
+
+    private static Task task(long id, Goal goal) {
+        Task t = new Task();
+        t.setId(id);
+        t.setGoal(goal);
+        return t;
+    }
+}
@@ -0,0 +1,176 @@
+package todoapp.application.service.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.apache.solr.common.SolrException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import todoapp.application.domain.Goal;
+import todoapp.application.domain.SearchOutbox;
+import todoapp.application.domain.SearchOutbox.EntityType;
+import todoapp.application.domain.SearchOutbox.Operation;
+import todoapp.application.domain.Task;
+import todoapp.application.repository.GoalRepository;
+import todoapp.application.repository.SearchOutboxRepository;
+import todoapp.application.repository.TaskRepository;
+
+@SpringBootTest(properties = {
+    "app.search.reindex-on-startup=false",
+    "app.search.outbox.poll-interval-ms=20",
+    "app.search.indexing.max-batch-wait-ms=0",
+    "app.search.indexing.batch-size=5",
+    "app.search.outbox.initial-backoff-ms=1",
+    "app.search.outbox.max-backoff-ms=5",
+    "app.search.outbox.max-attempts=3"
+})
+class SearchOutboxRelayTest {
+
+    private static final long POISON = 990_000_001L;
+
+    @MockBean
+    SearchIndexWriter writer;
+
+    @Autowired
+    SearchOutboxRepository outbox;
+
+    @Autowired
+    SearchOutboxRelay relay;
+
+    @Autowired
+    GoalRepository goals;
+
+    @Autowired
+    TaskRepository tasks;
+
+    @Autowired
+    PlatformTransactionManager txManager;
+
+    private volatile boolean solrDown;
+
+    @AfterEach
+    void cleanUp() {
+        outbox.deleteAll(outbox.findAll().stream().filter(e -> e.getEntityId() >= POISON).toList());
+    }
+
+    @Test
+    void rejectedRowIsParkedWithoutBlockingTheOthers() throws Exception {
+        doAnswer(inv -> {
+            List<IndexOperation> ops = inv.getArgument(0);
+            if (ops.stream().anyMatch(op -> op.getTarget().equals("task:" + POISON))) {
+                throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "bad document");
+            }
+            return null;
+        }).when(writer).apply(anyList());
+
+        SearchOutbox before = row(POISON + 1);
+        SearchOutbox poison = row(POISON);
+        SearchOutbox after = row(POISON + 2);
+
+        await(() -> reload(poison).getParkedAt() != null);
+        assertThat(reload(poison).getAttempts()).isEqualTo(3);
+        assertThat(reload(poison).getProcessedAt()).isNull();
+        assertThat(reload(before).getProcessedAt()).isNotNull();
+        assertThat(reload(after).getProcessedAt()).isNotNull();
+        assertThat(reload(after).getClaimedUntil()).isNull();
+    }
+
+    @Test
+    void unreachableSolrChargesNoAttempts() throws Exception {
+        solrDown = true;
+        doAnswer(inv -> {
+            if (solrDown) throw new RuntimeException("Solr index failed", new IOException("connection refused"));
+            return null;
+        }).when(writer).apply(anyList());
+
+        SearchOutbox e = row(POISON + 10);
+        await(() -> reload(e).getLastError() != null);
+        Thread.sleep(200);
+        assertThat(reload(e).getAttempts()).isZero();
+        assertThat(reload(e).getParkedAt()).isNull();
+
+        solrDown = false;
+        await(() -> reload(e).getProcessedAt() != null);
+    }
+
+    @Test
+    void rowsInBackoffDoNotStarveDueRowsBehindThem() throws Exception {
+        List<SearchOutbox> backedOff = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            SearchOutbox e = new SearchOutbox();
+            e.setEntityType(EntityType.TASK);
+            e.setEntityId(POISON + 20 + i);
+            e.setOperation(Operation.DELETE);
+            e.setNextAttemptAt(Instant.now().plus(Duration.ofHours(1)));
+            backedOff.add(outbox.save(e));
+        }
+        SearchOutbox due = row(POISON + 40);
+
+        await(() -> reload(due).getProcessedAt() != null);
+        assertThat(backedOff).allSatisfy(e -> {
+            assertThat(reload(e).getProcessedAt()).isNull();
+            assertThat(reload(e).getClaimedUntil()).isNull();
+        });
+    }
+
+    @Test
+    void taskOfSoftDeletedGoalResolvesToDelete() {
+        new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            Goal g = new Goal();
+            g.setName("relay test");
+            g = goals.save(g);
+            Task t = new Task();
+            t.setGoal(g);
+            t.setName("relay task");
+            t = tasks.save(t);
+            goals.markDeleted(g.getId());
+
+            SearchOutbox e = new SearchOutbox();
+            e.setEntityType(EntityType.TASK);
+            e.setEntityId(t.getId());
+            e.setOperation(Operation.UPSERT);
+            List<IndexOperation> ops = relay.resolve(List.of(e));
+
+            assertThat(ops).singleElement().satisfies(op -> {
+                assertThat(op.getKind()).isEqualTo(IndexOperation.Kind.DELETE_BY_ID);
+                assertThat(op.getTarget()).isEqualTo("task:" + e.getEntityId());
+            });
+            status.setRollbackOnly();
+        });
+    }
+
+    private SearchOutbox row(long taskId) {
+        SearchOutbox e = new SearchOutbox();
+        e.setEntityType(EntityType.TASK);
+        e.setEntityId(taskId);
+        e.setOperation(Operation.DELETE);
+        e.setNextAttemptAt(Instant.now());
+        return outbox.save(e);
+    }
+
+    private SearchOutbox reload(SearchOutbox e) {
+        return outbox.findById(e.getId()).orElseThrow();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) throw new AssertionError("condition not met within 10s");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package todoapp.application.service.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import todoapp.application.repository.GoalRepository;
+import todoapp.application.repository.NameRow;
+import todoapp.application.repository.TaskRepository;
+
+class SuggestIndexTest {
+
+    private final GoalRepository goals = mock(GoalRepository.class);
+    private final TaskRepository tasks = mock(TaskRepository.class);
+    private final List<NameRow> goalRows = new ArrayList<>();
+    private final List<NameRow> taskRows = new ArrayList<>();
+    private SuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SuggestIndex(goals, tasks, mock(PlatformTransactionManager.class), 100, 1, 20);
+        when(goals.findNamesAfter(anyLong(), anyInt()))
+            .thenAnswer(inv -> after(goalRows, inv.getArgument(0)));
+        when(tasks.findNamesAfter(anyLong(), anyInt()))
+            .thenAnswer(inv -> after(taskRows, inv.getArgument(0)));
+    }
+
+    @Test
+    void foldUnifiesWidthKanaCaseAndSpaces() {
+        assertThat(SuggestIndex.fold("ｶｲｷﾞ")).isEqualTo("かいぎ");
+        assertThat(SuggestIndex.fold("カイギ")).isEqualTo("かいぎ");
+        assertThat(SuggestIndex.fold("  ＭＴＧ　 資料 ")).isEqualTo("mtg 資料");
+        assertThat(SuggestIndex.fold(null)).isEmpty();
+    }
+
+    @Test
+    void rankedByCountThenLength() {
+        goalRows.add(row(1, 1, "会議"));
+        taskRows.add(row(10, 1, "カイギ準備"));
+        taskRows.add(row(11, 1, "ｶｲｷﾞ準備"));
+        taskRows.add(row(12, 1, "かいぎ"));
+        taskRows.add(row(13, 1, "買い物"));
+        index.rebuild();
+
+        // single code point: precomputed top list; longer: range scan
+        assertThat(texts(index.suggest("か", 10))).containsExactly("カイギ準備", "かいぎ");
+        assertThat(index.suggest("カイ", 10)).extracting(s -> s.count).containsExactly(2, 1);
+        assertThat(texts(index.suggest("会", 10))).containsExactly("会議");
+        assertThat(index.suggest(" ", 10)).isEmpty();
+    }
+
+    @Test
+    void overlayAppliesWritesUntilTheNextRebuild() {
+        goalRows.add(row(1, 1, "旅行"));
+        taskRows.add(row(10, 1, "切符"));
+        taskRows.add(row(11, 1, "宿"));
+        index.rebuild();
+
+        index.accept(List.of(
+            IndexOperation.upsert(task(12, 1, "切符")),
+            IndexOperation.upsert(task(11, 1, "荷造り")),
+            IndexOperation.upsert(goal(2, "旅費"))));
+        assertThat(index.suggest("切", 10)).singleElement().satisfies(s -> assertThat(s.count).isEqualTo(2));
+        assertThat(index.suggest("宿", 10)).isEmpty();
+        assertThat(texts(index.suggest("荷造", 10))).containsExactly("荷造り");
+        assertThat(texts(index.suggest("旅", 10))).containsExactlyInAnyOrder("旅行", "旅費");
+
+        // the goal delete takes its snapshot and overlay tasks with it
+        index.accept(List.of(IndexOperation.deleteByQuery("goal_id_l:1")));
+        assertThat(index.suggest("切", 10)).isEmpty();
+        assertThat(index.suggest("荷造", 10)).isEmpty();
+        assertThat(texts(index.suggest("旅", 10))).containsExactly("旅費");
+
+        index.accept(List.of(IndexOperation.deleteById("goal:2")));
+        assertThat(index.suggest("旅", 10)).isEmpty();
+    }
+
+    @Test
+    void writesDuringRebuildAreReplayedOntoIt() {
+        goalRows.add(row(1, 1, "掃除"));
+        index.rebuild();
+
+        // writes that land while the rebuild reads the database, after it read the goals
+        AtomicBoolean written = new AtomicBoolean();
+        when(tasks.findNamesAfter(anyLong(), anyInt())).thenAnswer(inv -> {
+            if (!written.getAndSet(true)) {
+                index.accept(List.of(
+                    IndexOperation.upsert(task(20, 1, "掃除機")),
+                    IndexOperation.deleteById("goal:1")));
+            }
+            return List.of();
+        });
+        index.rebuild();
+
+        assertThat(texts(index.suggest("掃除", 10))).containsExactly("掃除機");
+    }
+
+    private static List<String> texts(List<SuggestIndex.Suggestion> suggestions) {
+        return suggestions.stream().map(s -> s.text).toList();
+    }
+
+    private static List<NameRow> after(List<NameRow> rows, long afterId) {
+        return rows.stream().filter(r -> r.getId() > afterId).toList();
+    }
+
+    private static SolrInputDocument goal(long id, String name) {
+        SolrInputDocument d = new SolrInputDocument();
+        d.setField("type", "goal");
+        d.setField("id", "goal:" + id);
+        d.setField("goal_id_l", id);
+        d.setField("goal_name_ja", name);
+        return d;
+    }
+
+    private static SolrInputDocument task(long id, long goalId, String name) {
+        SolrInputDocument d = new SolrInputDocument();
+        d.setField("type", "task");
+        d.setField("id", "task:" + id);
+        d.setField("goal_id_l", goalId);
+        d.setField("task_name_ja", name);
+        return d;
+    }
+
+    private static NameRow row(long id, long goalId, String name) {
+        return new NameRow() {
+            public Long getId() { return id; }
+            public Long getGoalId() { return goalId; }
+            public String getName() { return name; }
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package todoapp.application.service.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.solr.client.solrj.response.json.NestableJsonFacet;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.junit.jupiter.api.Test;
+
+import todoapp.application.service.search.SolrIndexService.TaskStats;
+
+/** {@link SolrIndexService#toTaskStats} against facet responses shaped like Solr's JSON facet output. */
+class TaskStatsParsingTest {
+
+    private static final Instant DAY1 = Instant.parse("2024-05-01T15:00:00Z");
+    private static final Instant DAY2 = Instant.parse("2024-05-02T15:00:00Z");
+
+    @Test
+    void readsTotalsGoalBucketsAndDayBuckets() {
+        NamedList<Object> facets = facet(12, 5.0);
+        facets.add("goals", buckets(bucket(7L, 8, 4.0), bucket(3L, 4, 1.0)));
+        // an empty day bucket carries no sum
+        facets.add("days", buckets(bucket(Date.from(DAY1), 3, 2.0), bucket(Date.from(DAY2), 0, null)));
+
+        TaskStats stats = SolrIndexService.toTaskStats(12, new NestableJsonFacet(facets));
+
+        assertThat(stats.total).isEqualTo(12);
+        assertThat(stats.completed).isEqualTo(5);
+        assertThat(stats.goals).extracting(g -> g.goalId, g -> g.total, g -> g.completed)
+            .containsExactly(tuple(7L, 8L, 4L), tuple(3L, 4L, 1L));
+        assertThat(stats.days).extracting(d -> d.start, d -> d.total, d -> d.completed)
+            .containsExactly(tuple(DAY1, 3L, 2L), tuple(DAY2, 0L, 0L));
+    }
+
+    @Test
+    void noFacetsMeansOnlyTheTotal() {
+        TaskStats stats = SolrIndexService.toTaskStats(0, null);
+
+        assertThat(stats.total).isZero();
+        assertThat(stats.completed).isZero();
+        assertThat(stats.goals).isEmpty();
+        assertThat(stats.days).isEmpty();
+    }
+
+    private static NamedList<Object> facet(long count, Double completed) {
+        NamedList<Object> nl = new SimpleOrderedMap<>();
+        nl.add("count", count);
+        if (completed != null) nl.add("completed", completed);
+        return nl;
+    }
+
+    private static NamedList<Object> bucket(Object val, long count, Double completed) {
+        NamedList<Object> b = new SimpleOrderedMap<>();
+        b.add("val", val);
+        b.add("count", count);
+        if (completed != null) b.add("completed", completed);
+        return b;
+    }
+
+    @SafeVarargs
+    private static NamedList<Object> buckets(NamedList<Object>... buckets) {
+        NamedList<Object> nl = new SimpleOrderedMap<>();
+        nl.add("buckets", List.of(buckets));
+        return nl;
+    }
+}
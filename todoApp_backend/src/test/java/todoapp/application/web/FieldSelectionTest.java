@@ -0,0 +1,47 @@
+package todoapp.application.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+class FieldSelectionTest {
+
+    private static final Set<String> ALLOWED = Set.of("id", "name", "updatedAt");
+
+    @Test
+    void keepsRequestOrderAndDropsBlanksAndDuplicates() {
+        assertThat(FieldSelection.parse(" name, id,,name ,updatedAt", ALLOWED))
+            .containsExactly("name", "id", "updatedAt");
+    }
+
+    @Test
+    void unknownFieldIsBadRequest() {
+        assertThatThrownBy(() -> FieldSelection.parse("id,password", ALLOWED))
+            .isInstanceOfSatisfying(ResponseStatusException.class, e -> {
+                assertThat(e.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+                assertThat(e.getReason()).contains("password");
+            });
+    }
+
+    @Test
+    void emptySelectionIsBadRequest() {
+        assertThatThrownBy(() -> FieldSelection.parse(" , ", ALLOWED))
+            .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void sortOnlyBySelectableFields() {
+        FieldSelection.checkSort(Sort.by("updatedAt", "id"), ALLOWED);
+        FieldSelection.checkSort(Sort.unsorted(), ALLOWED);
+
+        assertThatThrownBy(() -> FieldSelection.checkSort(Sort.by("goal.name"), ALLOWED))
+            .isInstanceOfSatisfying(ResponseStatusException.class,
+                e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+}
@@ -0,0 +1,52 @@
+package todoapp.application.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+class KeysetCursorTest {
+
+    @Test
+    void roundTripKeepsMicroseconds() {
+        KeysetCursor cursor = new KeysetCursor(Instant.parse("2024-05-01T10:15:30.123456Z"), 42L);
+
+        KeysetCursor decoded = KeysetCursor.decode(cursor.encode());
+
+        assertThat(decoded.getUpdatedAt()).isEqualTo(cursor.getUpdatedAt());
+        assertThat(decoded.getId()).isEqualTo(42L);
+    }
+
+    @Test
+    void tokenIsUrlSafe() {
+        String token = new KeysetCursor(Instant.parse("2024-05-01T10:15:30Z"), 1L).encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void blankTokenIsTheFirstPage() {
+        assertThat(KeysetCursor.decode(null)).isNull();
+        assertThat(KeysetCursor.decode("")).isNull();
+        assertThat(KeysetCursor.decode("  ")).isNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "not base64!", "2024-05-01T10:15:30Z", "2024-05-01T10:15:30Z,abc", "yesterday,1", "," })
+    void malformedTokenIsBadRequest(String raw) {
+        String token = raw.equals("not base64!") ? raw
+            : Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> KeysetCursor.decode(token))
+            .isInstanceOfSatisfying(ResponseStatusException.class,
+                e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+}
@@ -0,0 +1,27 @@
+package todoapp.application.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+class ListTotalTest {
+
+    @Test
+    void parsesModesCaseInsensitively() {
+        assertThat(ListTotal.parse("exact")).isEqualTo(ListTotal.EXACT);
+        assertThat(ListTotal.parse("Estimate")).isEqualTo(ListTotal.ESTIMATE);
+        assertThat(ListTotal.parse("NONE")).isEqualTo(ListTotal.NONE);
+    }
+
+    @Test
+    void unknownModeIsBadRequest() {
+        assertThatThrownBy(() -> ListTotal.parse("approx"))
+            .isInstanceOfSatisfying(ResponseStatusException.class,
+                e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST));
+        assertThatThrownBy(() -> ListTotal.parse(""))
+            .isInstanceOf(ResponseStatusException.class);
+    }
+}